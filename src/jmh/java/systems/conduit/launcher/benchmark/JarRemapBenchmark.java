@@ -0,0 +1,70 @@
+package systems.conduit.launcher.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import systems.conduit.launcher.fixtures.Fixtures;
+import systems.conduit.launcher.remap.JarRemapper;
+import systems.conduit.launcher.remap.Mappings;
+import systems.conduit.launcher.remap.RemapCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JarRemapBenchmark {
+
+    @Param({"2000"})
+    private int classes;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private Path directory;
+    private File input;
+    private File output;
+    private Mappings mappings;
+    private RemapCache cache;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Fixtures.createDirectory("remap");
+        input = directory.resolve("server.jar").toFile();
+        output = directory.resolve("server-remapped.jar").toFile();
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < classes; i++) {
+            entries.put(Fixtures.OBFUSCATED_PREFIX + i + ".class", Fixtures.createObfuscatedClass(i, classes, 6, 12));
+        }
+        Fixtures.writeJar(input, entries);
+        File mappingsFile = directory.resolve("mappings.txt").toFile();
+        Fixtures.writeMappings(mappingsFile, classes, 6, 12);
+        mappings = Mappings.readProGuard(mappingsFile);
+        // Filled once so the cached benchmark only ever hits
+        cache = new RemapCache(directory.resolve("cache"));
+        new JarRemapper(mappings, cache, threads).remap(input, output);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public File remap() throws IOException {
+        new JarRemapper(mappings, null, threads).remap(input, output);
+        return output;
+    }
+
+    @Benchmark
+    public File remapCached() throws IOException {
+        new JarRemapper(mappings, cache, threads).remap(input, output);
+        return output;
+    }
+}
@@ -0,0 +1,52 @@
+package systems.conduit.launcher.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.*;
+import systems.conduit.launcher.fixtures.Fixtures;
+import systems.conduit.launcher.json.download.JsonLibraries;
+import systems.conduit.launcher.json.minecraft.JsonMinecraft;
+import systems.conduit.launcher.json.minecraft.MinecraftVersion;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private String version;
+    private String defaults;
+    private String minecraft;
+
+    @Setup
+    public void setup() throws IOException {
+        // The 1.14.4 version json layout with placeholder hashes, and the json shipped in the launcher jar
+        version = Fixtures.readResource("/fixtures/version.json");
+        defaults = Fixtures.readResource("/defaults.json");
+        minecraft = Fixtures.readResource("/minecraft.json");
+    }
+
+    @Benchmark
+    public MinecraftVersion versionJson() {
+        // The launcher creates a new Gson for every file it reads
+        Gson gson = new GsonBuilder().create();
+        return gson.fromJson(version, MinecraftVersion.class);
+    }
+
+    @Benchmark
+    public JsonLibraries defaultsJson() {
+        Gson gson = new GsonBuilder().create();
+        return gson.fromJson(defaults, JsonLibraries.class);
+    }
+
+    @Benchmark
+    public JsonMinecraft minecraftJson() {
+        Gson gson = new GsonBuilder().create();
+        return gson.fromJson(minecraft, JsonMinecraft.class);
+    }
+}
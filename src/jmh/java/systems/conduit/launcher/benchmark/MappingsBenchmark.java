@@ -0,0 +1,54 @@
+package systems.conduit.launcher.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import systems.conduit.launcher.fixtures.Fixtures;
+import systems.conduit.launcher.remap.Mappings;
+import us.tedstar.mojang2tsrg.Mojang2Tsrg;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingsBenchmark {
+
+    @Param({"2000", "8000"})
+    private int classes;
+
+    private Path directory;
+    private File mappings;
+    private File tsrg;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Fixtures.createDirectory("mappings");
+        mappings = directory.resolve("mappings.txt").toFile();
+        tsrg = directory.resolve("mappings.tsrg").toFile();
+        Fixtures.writeMappings(mappings, classes, 6, 12);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public Mappings readProGuard() throws IOException {
+        return Mappings.readProGuard(mappings);
+    }
+
+    @Benchmark
+    public File mojang2Tsrg() throws IOException {
+        // What the launcher used before it read the mappings itself
+        Mojang2Tsrg m2t = new Mojang2Tsrg();
+        m2t.loadClasses(mappings);
+        m2t.writeTsrg(mappings, tsrg);
+        return tsrg;
+    }
+}
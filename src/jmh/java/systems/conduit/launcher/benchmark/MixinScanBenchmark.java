@@ -0,0 +1,116 @@
+package systems.conduit.launcher.benchmark;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.*;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.fixtures.Fixtures;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.json.cache.JsonMixinJar;
+import systems.conduit.launcher.mixin.MixinScanner;
+import systems.conduit.launcher.mixin.MixinTargets;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixinScanBenchmark {
+
+    private static final int SERVER_CLASSES = 4000;
+
+    @Param({"20"})
+    private int jars;
+
+    @Param({"500"})
+    private int classesPerJar;
+
+    private Path directory;
+    private List<File> files;
+    private List<Path> paths;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Fixtures.createDirectory("mixins");
+        Map<String, byte[]> server = new LinkedHashMap<>();
+        for (int i = 0; i < SERVER_CLASSES; i++) {
+            server.put(Fixtures.OBFUSCATED_PREFIX + i + ".class", Fixtures.createObfuscatedClass(i, SERVER_CLASSES, 2, 2));
+        }
+        File serverJar = directory.resolve("server.jar").toFile();
+        Fixtures.writeJar(serverJar, server);
+        files = new ArrayList<>();
+        paths = new ArrayList<>(Collections.singletonList(serverJar.toPath()));
+        for (int jar = 0; jar < jars; jar++) {
+            // Mostly plain classes with a handful of mixins, like a mod that brings its own code along
+            Map<String, byte[]> entries = new LinkedHashMap<>();
+            StringBuilder mixins = new StringBuilder();
+            for (int i = 0; i < classesPerJar; i++) {
+                boolean mixin = i % 25 == 0;
+                String name = (mixin ? "mod" + jar + "/mixin/Mixin" : "mod" + jar + "/Class") + i;
+                entries.put(name + ".class", createClass(name, mixin ? Fixtures.OBFUSCATED_PREFIX + ((jar * 31 + i) % SERVER_CLASSES) : null));
+                if (mixin) mixins.append(mixins.length() == 0 ? "" : ",").append("\"Mixin").append(i).append("\"");
+            }
+            entries.put("mixins.mod" + jar + ".json", ("{\"package\":\"mod" + jar + ".mixin\",\"mixins\":[" + mixins + "]}").getBytes(StandardCharsets.UTF_8));
+            entries.put("libraries.json", "{\"libs\":[]}".getBytes(StandardCharsets.UTF_8));
+            File file = directory.resolve("mod" + jar + ".jar").toFile();
+            Fixtures.writeJar(file, entries);
+            files.add(file);
+            paths.add(file.toPath());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        JarFiles.release();
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public List<JsonMixinJar> scan() throws IOException {
+        // Every jar read from scratch, as on the first start after installing mods
+        JarFiles.release();
+        Files.deleteIfExists(Constants.MIXIN_INDEX_PATH);
+        return MixinScanner.scan(files);
+    }
+
+    @Benchmark
+    public List<JsonMixinJar> scanIndexed() throws IOException {
+        return MixinScanner.scan(files);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> targets() throws IOException {
+        JarFiles.release();
+        List<String> configs = new ArrayList<>();
+        for (int jar = 0; jar < jars; jar++) {
+            configs.add("mixins.mod" + jar + ".json");
+        }
+        return MixinTargets.scan(paths, configs);
+    }
+
+    private static byte[] createClass(String name, String target) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        if (target != null) {
+            AnnotationVisitor annotation = writer.visitAnnotation("Lorg/spongepowered/asm/mixin/Mixin;", false);
+            AnnotationVisitor value = annotation.visitArray("value");
+            value.visit(null, Type.getObjectType(target));
+            value.visitEnd();
+            annotation.visitEnd();
+        }
+        writer.visitField(Opcodes.ACC_PRIVATE, "value", "I", null, null).visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,56 @@
+package systems.conduit.launcher.benchmark;
+
+import systems.conduit.launcher.remap.JarRemapper;
+import systems.conduit.launcher.remap.Mappings;
+import us.tedstar.mojang2tsrg.Mojang2Tsrg;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+
+// Times the old Mojang2Tsrg + SpecialSource remap against JarRemapper on the same jar.
+// Usage: RemapBenchmark <server jar> <mappings txt> [runs], with SpecialSource on the classpath.
+public class RemapBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: RemapBenchmark <server jar> <mappings txt> [runs]");
+            return;
+        }
+        File input = new File(args[0]);
+        File mappingsFile = new File(args[1]);
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        File output = File.createTempFile("remap-benchmark", ".jar");
+        File tsrg = File.createTempFile("remap-benchmark", ".tsrg");
+        try {
+            for (int run = 1; run <= runs; run++) {
+                long start = System.nanoTime();
+                Mojang2Tsrg m2t = new Mojang2Tsrg();
+                m2t.loadClasses(mappingsFile);
+                m2t.writeTsrg(mappingsFile, tsrg);
+                Class<?> cls = Class.forName("net.md_5.specialsource.SpecialSource", true, ClassLoader.getSystemClassLoader());
+                Method method = cls.getMethod("main", String[].class);
+                method.invoke(null, (Object) new String[] {"--in-jar", input.getAbsolutePath(), "--out-jar", output.getAbsolutePath(), "--srg-in", tsrg.getAbsolutePath()});
+                long specialSource = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                // No cache so both sides do the full amount of work
+                new JarRemapper(Mappings.readProGuard(mappingsFile), null, Runtime.getRuntime().availableProcessors()).remap(input, output);
+                long jarRemapper = System.nanoTime() - start;
+                System.out.println("Run " + run + ": SpecialSource " + millis(specialSource) + "ms, JarRemapper " + millis(jarRemapper) + "ms");
+            }
+        } finally {
+            delete(output);
+            delete(tsrg);
+        }
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static void delete(File file) throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+}
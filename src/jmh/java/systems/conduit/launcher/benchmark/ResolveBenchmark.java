@@ -0,0 +1,145 @@
+package systems.conduit.launcher.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.DownloadExecutor;
+import systems.conduit.launcher.fixtures.Fixtures;
+import systems.conduit.launcher.json.download.JsonLibraryInfo;
+import systems.conduit.launcher.resolve.DependencyResolver;
+import systems.conduit.launcher.resolve.Resolution;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// Without it the stand-in waits on delayed acks and the benchmark mostly measures that
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class ResolveBenchmark {
+
+    private static final String GROUP = "systems.conduit.benchmark";
+
+    @Param({"100", "400"})
+    private int libraries;
+
+    private HttpServer server;
+    private String repository;
+    private Path directory;
+    private Path warm;
+    private Path cold;
+    private Map<String, List<JsonLibraryInfo>> batch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // A local stand-in for the maven repository, every pom is generated on request
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.start();
+        repository = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+        // A quarter is declared, the rest is pulled in transitively with some version conflicts along the way
+        List<JsonLibraryInfo> declared = new ArrayList<>();
+        for (int i = 0; i < libraries / 4; i++) {
+            declared.add(new JsonLibraryInfo("maven", GROUP, "lib" + i, "1.0", repository));
+        }
+        batch = Collections.singletonMap("benchmark libraries", declared);
+        directory = Fixtures.createDirectory("resolve");
+        warm = directory.resolve("warm");
+        // Only poms are cached on disk, so one resolve leaves everything the warm case needs
+        try (DownloadExecutor executor = new DownloadExecutor(8, 4)) {
+            new DependencyResolver(warm, executor).resolve(batch, new HashMap<>(), true);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clean() throws IOException {
+        if (cold != null) Fixtures.delete(cold);
+        cold = directory.resolve("cold-" + System.nanoTime());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public Resolution resolve() {
+        // First start, every pom comes over http
+        try (DownloadExecutor executor = new DownloadExecutor(8, 4)) {
+            return new DependencyResolver(cold, executor).resolve(batch, new HashMap<>(), true);
+        }
+    }
+
+    @Benchmark
+    public Resolution resolveCached() {
+        try (DownloadExecutor executor = new DownloadExecutor(8, 4)) {
+            return new DependencyResolver(warm, executor).resolve(batch, new HashMap<>(), true);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        // Paths look like systems/conduit/benchmark/lib12/1.1/lib12-1.1.pom(.sha1)
+        String path = exchange.getRequestURI().getPath();
+        String[] parts = path.split("/");
+        byte[] body = null;
+        if (parts.length >= 3 && (path.endsWith(".pom") || path.endsWith(".pom.sha1"))) {
+            String artifactId = parts[parts.length - 3];
+            String version = parts[parts.length - 2];
+            if (artifactId.startsWith("lib")) {
+                byte[] pom = createPom(Integer.parseInt(artifactId.substring(3)), version);
+                if (path.endsWith(".sha1")) {
+                    MessageDigest digest = Checksum.createDigest("SHA-1");
+                    body = Checksum.toHex(digest.digest(pom)).getBytes(StandardCharsets.UTF_8);
+                } else {
+                    body = pom;
+                }
+            }
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private byte[] createPom(int index, String version) {
+        StringBuilder pom = new StringBuilder();
+        pom.append("<project><modelVersion>4.0.0</modelVersion>");
+        pom.append("<groupId>").append(GROUP).append("</groupId><artifactId>lib").append(index).append("</artifactId><version>").append(version).append("</version>");
+        pom.append("<dependencies>");
+        // Every library points further down the list, so the graph stays acyclic and reaches everything
+        for (int dependency : new int[] {index * 2 + 1, index * 2 + 2, index + libraries / 4}) {
+            if (dependency <= index || dependency >= libraries) continue;
+            // Newer releases ask for newer versions of some dependencies, which the resolver has to settle
+            String dependencyVersion = version.equals("1.1") && dependency % 3 == 0 ? "1.1" : "1.0";
+            pom.append("<dependency><groupId>").append(GROUP).append("</groupId><artifactId>lib").append(dependency)
+                    .append("</artifactId><version>").append(dependencyVersion).append("</version></dependency>");
+        }
+        if (index % 5 == 0 && index * 3 + 1 < libraries) {
+            pom.append("<dependency><groupId>").append(GROUP).append("</groupId><artifactId>lib").append(index * 3 + 1)
+                    .append("</artifactId><version>1.1</version></dependency>");
+        }
+        pom.append("</dependencies></project>");
+        return pom.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
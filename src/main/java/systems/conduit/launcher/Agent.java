@@ -5,6 +5,7 @@ import java.lang.instrument.Instrumentation;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.List;
 import java.util.jar.JarFile;
 
 public class Agent {
@@ -16,16 +17,30 @@ public class Agent {
         Agent.inst = inst;
     }
 
-    static void addClassPath(File f) {
+    // Used when the launcher starts itself again with -javaagent
+    public static void premain(final String a, final Instrumentation inst) {
+        agentmain(a, inst);
+    }
+
+    static void addClassPath(List<File> files) {
+        if (files.isEmpty()) return;
         ClassLoader cl = ClassLoader.getSystemClassLoader();
         try {
             if (inst != null) {
-                inst.appendToSystemClassLoaderSearch(new JarFile(f));
+                for (File f : files) {
+                    inst.appendToSystemClassLoaderSearch(new JarFile(f));
+                }
                 return;
             }
+            if (!(cl instanceof URLClassLoader)) {
+                throw new IllegalStateException("No instrumentation available, start the launcher with -jar so its agent is loaded");
+            }
+            // Only works on Java 8, newer versions always have the agent when started with -jar
             Method m = URLClassLoader.class.getDeclaredMethod("addURL", URL.class);
             m.setAccessible(true);
-            m.invoke(cl, f.toURI().toURL());
+            for (File f : files) {
+                m.invoke(cl, f.toURI().toURL());
+            }
         } catch (Throwable e) {
             System.out.println("Add to classpath error!");
             e.printStackTrace();
@@ -2,6 +2,9 @@ package systems.conduit.launcher;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class Constants {
 
@@ -22,7 +25,6 @@ public class Constants {
     public static Path SERVER_JAR_PATH;
     public static Path SERVER_MAPPED_JAR_PATH;
     public static Path SERVER_MAPPINGS_PATH;
-    public static Path SERVER_MAPPINGS_CONVERTED_PATH;
 
     public static final Path DEV_PATH = Paths.get(".minecraft", ".dev");
     public static final Path SERVER_DEV_PATH = DEV_PATH.resolve("server");
@@ -30,17 +32,82 @@ public class Constants {
 
     public static final Path MIXINS_PATH = Paths.get(".mixins");
 
-    public static final String VERSION_MANIFEST_ENDPOINT = "https://launchermeta.mojang.com/mc/game/version_manifest.json";
+    public static final Path CACHE_PATH = Paths.get(".cache");
+    public static final Path LAUNCH_PLAN_PATH = CACHE_PATH.resolve("launch-plan.json");
+    public static final Path MIXIN_INDEX_PATH = CACHE_PATH.resolve("mixin-index.json");
+    public static final Path MIXIN_SELECTION_PATH = CACHE_PATH.resolve("mixin-selection.json");
+    public static final Path REMAP_CACHE_PATH = CACHE_PATH.resolve("remap");
+    public static final Path MAPPINGS_CACHE_PATH = CACHE_PATH.resolve("mappings");
+    public static final Path TRANSFORM_CACHE_PATH = CACHE_PATH.resolve("transform");
+    public static final Path TIMELINE_PATH = Paths.get(System.getProperty("launcher.timeline", CACHE_PATH.resolve("launch-timeline.json").toString()));
+
+    // Also emit every phase as a flight recorder event
+    public static final boolean TIMELINE_JFR = Boolean.getBoolean("launcher.timelineJfr");
+
+    // Where provision mode writes the launch bundle and offline mode reads it from
+    public static final Path BUNDLE_PATH = Paths.get(System.getProperty("launcher.bundle", "bundle"));
+    public static final boolean BUNDLE_VERIFY = Boolean.getBoolean("launcher.bundleVerify");
+
+    // Versions to get ready side by side in prepare mode, the one in minecraft.json when empty
+    public static final List<String> PREPARE_VERSIONS = Arrays.stream(System.getProperty("launcher.prepareVersions", "").split(","))
+            .map(String::trim).filter(version -> !version.isEmpty()).collect(Collectors.toList());
+
+    // Mixin output is cached between starts and only served once a fresh transform matched it, verify checks on every start
+    public static final boolean TRANSFORM_CACHE = Boolean.parseBoolean(System.getProperty("launcher.transformCache", "true"));
+    public static final boolean TRANSFORM_CACHE_VERIFY = Boolean.getBoolean("launcher.transformCacheVerify");
+
+    // Class data sharing archive made by a train run, used automatically once it exists
+    public static final Path CDS_PATH = CACHE_PATH.resolve("cds");
+    public static final boolean CDS_ENABLED = Boolean.parseBoolean(System.getProperty("launcher.cds", "true"));
+    public static final boolean CDS_CHILD = Boolean.getBoolean("launcher.cdsChild");
+
+    // Supervisor mode restarts the server in child JVMs that were started ahead of time. Exit code 0 stops it, any other code restarts
+    public static final int SUPERVISOR_PORT = Integer.getInteger("launcher.supervisorPort", 0);
+    public static final long SUPERVISOR_MIN_UPTIME = Long.getLong("launcher.supervisorMinUptime", 30000);
+
+    // The remapped server is packed in class load order once a train run recorded it
+    public static final Path PACK_PATH = CACHE_PATH.resolve("pack");
+    public static final boolean PACK_ENABLED = Boolean.parseBoolean(System.getProperty("launcher.pack", "true"));
+    public static final boolean PACK_RECORD = Boolean.getBoolean("launcher.packRecord");
+    public static final boolean PACK_STORE_HOT = Boolean.parseBoolean(System.getProperty("launcher.packStoreHot", "true"));
+    // Off by default, mixins that pick locals by name need the local variable tables
+    public static final boolean PACK_STRIP_DEBUG = Boolean.getBoolean("launcher.packStripDebug");
+
+    // Optional store shared by every instance on the host
+    public static final Path SHARED_STORE_PATH = System.getProperty("launcher.sharedStore") != null ? Paths.get(System.getProperty("launcher.sharedStore")) : null;
+
+    public static final String VERSION_MANIFEST_ENDPOINT = System.getProperty("launcher.versionManifest", "https://launchermeta.mojang.com/mc/game/version_manifest.json");
     public static final String MINECRAFT_REPO = "https://libraries.minecraft.net/";
-    public static final String DEFAULT_REPO = "https://jcenter.bintray.com/";
+    public static final String DEFAULT_REPO = System.getProperty("launcher.defaultRepo", "https://repo.maven.apache.org/maven2/");
+
+    // Repositories tried before any other, like an in-house mirror every node provisions from. Comma separated, file: urls work too
+    // Minecraft's own downloads are asked for under the path they have on Mojang's servers
+    public static final List<String> MIRRORS = Arrays.stream(System.getProperty("launcher.mirrors", "").split(","))
+            .map(String::trim).filter(mirror -> !mirror.isEmpty()).collect(Collectors.toList());
+
+    // Metadata like the version manifest is only asked for again once it is this old, and then only if it changed
+    public static final Path METADATA_CACHE_PATH = CACHE_PATH.resolve("metadata");
+    public static final long METADATA_MAX_AGE = Long.getLong("launcher.metadataMaxAge", 600000);
 
     public static final String USER_AGENT = "Mozilla/5.0";
 
+    public static final int DOWNLOAD_THREADS = Integer.getInteger("launcher.downloadThreads", 8);
+    public static final int DOWNLOAD_CONNECTIONS_PER_HOST = Integer.getInteger("launcher.downloadConnectionsPerHost", 4);
+    public static final int DOWNLOAD_SEGMENTS = Integer.getInteger("launcher.downloadSegments", 4);
+    public static final int DOWNLOAD_RETRIES = Integer.getInteger("launcher.downloadRetries", 5);
+    public static final int DOWNLOAD_TIMEOUT = Integer.getInteger("launcher.downloadTimeout", 30000);
+
+    public static final boolean RESOLVE_TRANSITIVE = Boolean.parseBoolean(System.getProperty("launcher.resolveTransitive", "true"));
+
+    public static final int REMAP_THREADS = Integer.getInteger("launcher.remapThreads", Runtime.getRuntime().availableProcessors());
+    // Hash the remapped jar on every start instead of trusting its size and modified time
+    public static final boolean REMAP_VERIFY = Boolean.getBoolean("launcher.remapVerify");
+
     public static void setMinecraftVersion() {
-        VERSION_JSON_PATH = MINECRAFT_PATH.resolve(MINECRAFT_VERSION + ".json");
-        SERVER_JAR_PATH = MINECRAFT_PATH.resolve("server-" + MINECRAFT_VERSION + ".jar");
-        SERVER_MAPPED_JAR_PATH = MINECRAFT_PATH.resolve("server-" + MINECRAFT_VERSION + "-remapped.jar");
-        SERVER_MAPPINGS_PATH = MINECRAFT_PATH.resolve("server-" + MINECRAFT_VERSION + "-mappings.txt");
-        SERVER_MAPPINGS_CONVERTED_PATH =  MINECRAFT_PATH.resolve("server-" + MINECRAFT_VERSION + "-mappings-converted.txt");
+        MinecraftPaths paths = MinecraftPaths.of(MINECRAFT_VERSION);
+        VERSION_JSON_PATH = paths.getVersionJson();
+        SERVER_JAR_PATH = paths.getServerJar();
+        SERVER_MAPPED_JAR_PATH = paths.getServerMappedJar();
+        SERVER_MAPPINGS_PATH = paths.getServerMappings();
     }
 }
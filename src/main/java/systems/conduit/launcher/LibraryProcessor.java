@@ -1,54 +1,185 @@
 package systems.conduit.launcher;
 
+import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.LogManager;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.DownloadExecutor;
 import systems.conduit.launcher.json.download.JsonLibraryInfo;
+import systems.conduit.launcher.resolve.DependencyResolver;
+import systems.conduit.launcher.resolve.Resolution;
+import systems.conduit.launcher.resolve.ResolvedLibrary;
+import systems.conduit.launcher.store.SharedStore;
+import systems.conduit.launcher.timing.LaunchTimeline;
 
 import java.io.File;
-import java.net.MalformedURLException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class LibraryProcessor {
 
-    private static ArrayList<String> loadedArtifacts = new ArrayList<>();
+    // groupId:artifactId of everything on the classpath, mapped to the version that was loaded
+    private static final Map<String, String> loadedArtifacts = new HashMap<>();
+    // Replaced as a whole on every install, so callers can hold on to what they were given
+    private static volatile List<File> classpath = Collections.emptyList();
+    private static final Set<File> installed = new HashSet<>();
+    // Jars the JVM was started with, like when relaunched for class data sharing
+    private static final Set<File> startupClasspath = new HashSet<>();
+
+    static {
+        for (String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!path.isEmpty()) startupClasspath.add(new File(path).getAbsoluteFile());
+        }
+    }
+    private static Path librariesPath = Constants.LIBRARIES_PATH;
+    private static boolean offline = false;
+
+    public static void setOffline(Path bundleLibrariesPath) {
+        // Everything has to come from the bundle, nothing is ever downloaded
+        librariesPath = bundleLibrariesPath;
+        offline = true;
+    }
 
     public static void downloadLibrary(String type, boolean firstLaunch, List<JsonLibraryInfo> libraries) {
-        info(firstLaunch, "Loading " + type);
-        List<String> loadedLibraries = new ArrayList<>();
+        Map<String, List<JsonLibraryInfo>> batch = new LinkedHashMap<>();
+        batch.put(type, libraries);
+        downloadLibraries(firstLaunch, batch);
+    }
+
+    public static void downloadLibraries(boolean firstLaunch, Map<String, List<JsonLibraryInfo>> batch) {
+        // Resolve the whole set first so the classpath order never depends on which download finishes first
+        List<QueuedLibrary> queued = new ArrayList<>();
+        try (DownloadExecutor executor = new DownloadExecutor(Constants.DOWNLOAD_THREADS, Constants.DOWNLOAD_CONNECTIONS_PER_HOST, SharedStore.get())) {
+            batch.keySet().forEach(type -> info(firstLaunch, "Loading " + type));
+            // The bootstrap libraries are known up front and have to load before anything else can
+            boolean transitive = !firstLaunch && !offline && Constants.RESOLVE_TRANSITIVE;
+            Resolution resolution = new DependencyResolver(librariesPath, offline ? null : executor).resolve(batch, loadedArtifacts, transitive);
+            resolution.getConflicts().forEach(conflict -> info(firstLaunch, "Resolved version conflict " + conflict));
+            for (ResolvedLibrary resolved : resolution.getLibraries()) {
+                String type = resolved.getType();
+                JsonLibraryInfo library = resolved.getLibrary();
+                File libraryPath = new File(librariesPath.toFile() + File.separator + getPath(library));
+                try {
+                    File jar = new File(libraryPath, getFileName(library));
+                    Future<File> download = null;
+                    if (offline && !jar.exists()) {
+                        throw new FileNotFoundException("Missing from bundle: " + jar);
+                    }
+                    Files.createDirectories(libraryPath.toPath());
+                    if (jar.exists()) {
+                        LaunchTimeline.addCacheHits(1);
+                    } else {
+                        download = submit(executor, library, jar);
+                        if (download != null) info(firstLaunch, "Downloading " + type + ": " + library.getArtifactId());
+                    }
+                    if (download != null) LaunchTimeline.addCacheMisses(1);
+                    queued.add(new QueuedLibrary(type, library, jar, download));
+                    loadedArtifacts.put(resolved.getKey(), library.getVersion());
+                } catch (Exception e) {
+                    error(firstLaunch, "Error loading " + type + ": " + library.getArtifactId());
+                    e.printStackTrace();
+                    System.exit(0);
+                }
+            }
+            // Wait for everything before touching the classpath
+            for (QueuedLibrary library : queued) {
+                if (library.download == null) continue;
+                try {
+                    library.download.get();
+                } catch (ExecutionException | InterruptedException e) {
+                    error(firstLaunch, "Error loading " + library.type + ": " + library.library.getArtifactId());
+                    (e instanceof ExecutionException ? e.getCause() : e).printStackTrace();
+                    System.exit(0);
+                }
+            }
+        }
+        // Add to the classpath in the same order the libraries were declared
+        Map<String, List<String>> loadedLibraries = new LinkedHashMap<>();
+        List<File> jars = new ArrayList<>();
+        for (QueuedLibrary library : queued) {
+            jars.add(library.jar);
+            loadedLibraries.computeIfAbsent(library.type, type -> new ArrayList<>()).add(library.library.getArtifactId());
+        }
+        addClassPath(jars);
+        loadedLibraries.forEach((type, loaded) -> LogManager.getLogger(Constants.LOGGER_NAME).info("Loaded " + type + ": " + loaded));
+    }
+
+    public static void prefetchLibraries(String type, List<JsonLibraryInfo> libraries) {
+        // Only puts the jars in place for a later start, nothing is resolved against or added to this classpath
+        Map<String, JsonLibraryInfo> unique = new LinkedHashMap<>();
         for (JsonLibraryInfo library : libraries) {
-            if (loadedArtifacts.contains(library.getGroupId() + ":" + library.getArtifactId())) continue;
-            File libraryPath = new File(Constants.LIBRARIES_PATH.toFile() + File.separator + getPath(library));
-            try {
-                Files.createDirectories(libraryPath.toPath());
+            unique.putIfAbsent(library.getGroupId() + ":" + library.getArtifactId() + ":" + library.getVersion(), library);
+        }
+        Map<JsonLibraryInfo, Future<File>> downloads = new LinkedHashMap<>();
+        try (DownloadExecutor executor = new DownloadExecutor(Constants.DOWNLOAD_THREADS, Constants.DOWNLOAD_CONNECTIONS_PER_HOST, SharedStore.get())) {
+            for (JsonLibraryInfo library : unique.values()) {
+                File libraryPath = new File(librariesPath.toFile() + File.separator + getPath(library));
                 File jar = new File(libraryPath, getFileName(library));
-                if (!jar.exists() && library.getType() != null) {
-                    if (library.getType().trim().equalsIgnoreCase("maven")) {
-                        info(firstLaunch, "Downloading " + type + ": " + library.getArtifactId());
-                        MainStart.downloadFile(getUrl(library), jar);
-                    } else if (!library.getType().trim().equalsIgnoreCase("minecraft")) {
-                        info(firstLaunch, "Downloading " + type + ": " + library.getArtifactId());
-                        MainStart.downloadFile(new URL(library.getUrl()), jar);
-                    }
+                if (jar.exists()) {
+                    LaunchTimeline.addCacheHits(1);
+                    continue;
+                }
+                try {
+                    Files.createDirectories(libraryPath.toPath());
+                    Future<File> download = submit(executor, library, jar);
+                    if (download == null) continue;
+                    LaunchTimeline.addCacheMisses(1);
+                    downloads.put(library, download);
+                } catch (Exception e) {
+                    error(false, "Error loading " + type + ": " + library.getArtifactId());
+                    e.printStackTrace();
+                    System.exit(0);
                 }
-                loadedLibraries.add(library.getArtifactId());
-                loadedArtifacts.add(library.getGroupId() + ":" + library.getArtifactId());
-                Agent.addClassPath(jar);
-            } catch (Exception e) {
-                error(firstLaunch, "Error loading " + type + ": " + library.getArtifactId());
-                e.printStackTrace();
-                System.exit(0);
             }
+            for (Map.Entry<JsonLibraryInfo, Future<File>> download : downloads.entrySet()) {
+                try {
+                    download.getValue().get();
+                } catch (ExecutionException | InterruptedException e) {
+                    error(false, "Error loading " + type + ": " + download.getKey().getArtifactId());
+                    (e instanceof ExecutionException ? e.getCause() : e).printStackTrace();
+                    System.exit(0);
+                }
+            }
+        }
+        info(false, "Prefetched " + type + ": " + downloads.size() + " downloaded, " + (unique.size() - downloads.size()) + " already present");
+    }
 
+    public static synchronized void addClassPath(List<File> jars) {
+        List<File> added = new ArrayList<>();
+        for (File jar : jars) {
+            if (installed.add(jar)) added.add(jar);
         }
-        if (!loadedLibraries.isEmpty()) LogManager.getLogger(Constants.LOGGER_NAME).info("Loaded " + type + ": " + loadedLibraries);
+        if (added.isEmpty()) return;
+        // Install everything in one go
+        List<File> missing = new ArrayList<>();
+        for (File jar : added) {
+            if (!startupClasspath.contains(jar.getAbsoluteFile())) missing.add(jar);
+        }
+        Agent.addClassPath(missing);
+        List<File> updated = new ArrayList<>(classpath);
+        updated.addAll(added);
+        classpath = Collections.unmodifiableList(updated);
+    }
+
+    public static List<File> getClasspath() {
+        return classpath;
     }
 
-    private static URL getUrl(JsonLibraryInfo library) throws MalformedURLException {
-        String repo = Constants.DEFAULT_REPO;
-        if (library.getUrl() != null && !library.getUrl().trim().isEmpty()) repo = library.getUrl().trim();
-        return new URL((repo.endsWith("/") ? repo : repo + "/") + getPath(library) + getFileName(library));
+    private static Future<File> submit(DownloadExecutor executor, JsonLibraryInfo library, File jar) throws IOException {
+        if (library.getType() == null) return null;
+        if (library.getType().trim().equalsIgnoreCase("maven")) {
+            Checksum checksum = Checksum.sha1(library.getSha1());
+            String path = getPath(library) + getFileName(library);
+            return checksum != null ? executor.submit(library.getUrl(), path, jar, checksum) : executor.submitWithSidecar(library.getUrl(), path, jar);
+        }
+        // Minecraft itself is handled separately
+        if (library.getType().trim().equalsIgnoreCase("minecraft")) return null;
+        return executor.submit(new URL(library.getUrl()), jar, Checksum.sha1(library.getSha1()));
     }
 
     private static String getFileName(JsonLibraryInfo library) {
@@ -56,7 +187,7 @@ public class LibraryProcessor {
     }
 
     private static String getPath(JsonLibraryInfo library) {
-        return library.getGroupId().replaceAll("\\.", "/") + "/" + library.getArtifactId() + "/" + library.getVersion() + "/";
+        return DependencyResolver.getPath(library.getGroupId(), library.getArtifactId(), library.getVersion());
     }
 
     private static void info(boolean firstLaunch, String message) {
@@ -74,4 +205,14 @@ public class LibraryProcessor {
             LogManager.getLogger(Constants.LOGGER_NAME).fatal(message);
         }
     }
+
+    @RequiredArgsConstructor
+    private static class QueuedLibrary {
+
+        private final String type;
+        private final JsonLibraryInfo library;
+        private final File jar;
+        private final Future<File> download;
+
+    }
 }
@@ -5,6 +5,18 @@ import com.google.gson.GsonBuilder;
 import cpw.mods.modlauncher.Launcher;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import systems.conduit.launcher.bundle.LaunchBundle;
+import systems.conduit.launcher.cache.LaunchPlanCache;
+import systems.conduit.launcher.cds.ClassDataSharing;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.download.ResumableDownloader;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.json.bundle.JsonBundle;
+import systems.conduit.launcher.json.cache.JsonLaunchPlan;
+import systems.conduit.launcher.json.cache.JsonMixinJar;
+import systems.conduit.launcher.json.cache.JsonMixinSelection;
+import systems.conduit.launcher.json.cache.JsonPackIndex;
 import systems.conduit.launcher.json.download.JsonLibraries;
 import systems.conduit.launcher.json.download.JsonLibraryInfo;
 import systems.conduit.launcher.json.minecraft.manifest.MinecraftVersionManifest;
@@ -12,13 +24,28 @@ import systems.conduit.launcher.json.minecraft.manifest.MinecraftVersionManifest
 import systems.conduit.launcher.json.minecraft.JsonMinecraft;
 import systems.conduit.launcher.json.minecraft.MinecraftLibrary;
 import systems.conduit.launcher.json.minecraft.MinecraftVersion;
+import systems.conduit.launcher.json.minecraft.MinecraftVersionInfo;
 import systems.conduit.launcher.json.mixins.JsonMixin;
 import systems.conduit.launcher.json.mixins.JsonMixins;
-import us.tedstar.mojang2tsrg.Mojang2Tsrg;
+import systems.conduit.launcher.mixin.MixinScanner;
+import systems.conduit.launcher.mixin.MixinSelection;
+import systems.conduit.launcher.pack.ClassLoadOrder;
+import systems.conduit.launcher.pack.JarPacker;
+import systems.conduit.launcher.remap.JarFilter;
+import systems.conduit.launcher.remap.JarRemapper;
+import systems.conduit.launcher.remap.MappingCache;
+import systems.conduit.launcher.remap.Mappings;
+import systems.conduit.launcher.remap.RemapCache;
+import systems.conduit.launcher.remap.RemapManifest;
+import systems.conduit.launcher.repository.MetadataCache;
+import systems.conduit.launcher.repository.Repositories;
+import systems.conduit.launcher.store.SharedStore;
+import systems.conduit.launcher.supervisor.Supervisor;
+import systems.conduit.launcher.timing.LaunchTimeline;
+import systems.conduit.launcher.timing.Phase;
+import systems.conduit.launcher.transform.TransformCache;
 
 import java.io.*;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -27,9 +54,13 @@ import java.nio.file.FileSystem;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.jar.JarFile;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
 
 public class MainStart {
 
@@ -40,16 +71,59 @@ public class MainStart {
         System.setProperty("http.agent", Constants.USER_AGENT);
         //System.setProperty("mixin.debug", "true");
         System.out.println("Starting launcher...");
-        // Load logger libraries
-        LibraryProcessor.downloadLibrary("logger libraries", true, Arrays.asList(
+        LaunchTimeline.start("bootstrap");
+        // Load logger and json libraries
+        Map<String, List<JsonLibraryInfo>> bootstrapLibraries = new LinkedHashMap<>();
+        bootstrapLibraries.put("logger libraries", Arrays.asList(
                 new JsonLibraryInfo("maven", "org.apache.logging.log4j", "log4j-api", "2.8.1", ""),
                 new JsonLibraryInfo("maven", "org.apache.logging.log4j", "log4j-core", "2.8.1", "")
         ));
-        Logger logger = LogManager.getLogger(Constants.LOGGER_NAME);
-        // Load json library
-        LibraryProcessor.downloadLibrary("json library", false, Collections.singletonList(
+        bootstrapLibraries.put("json library", Collections.singletonList(
                 new JsonLibraryInfo("maven", "com.google.code.gson", "gson", "2.8.0", "")
         ));
+        // Offline starts take everything from a bundle made by provision mode
+        boolean offline = Arrays.asList(args).contains("--offline");
+        if (offline) LibraryProcessor.setOffline(Constants.BUNDLE_PATH.resolve(Constants.LIBRARIES_PATH));
+        LibraryProcessor.downloadLibraries(true, bootstrapLibraries);
+        Logger logger = LogManager.getLogger(Constants.LOGGER_NAME);
+        // A valid archive knows its class path, so relaunch before doing any work the child would only repeat
+        if (!ClassDataSharing.isChild() && Constants.CDS_ENABLED && ClassDataSharing.isSupported()
+                && Collections.disjoint(Arrays.asList(args), Arrays.asList("dev", "provision", "prepare", "supervise", "train"))) {
+            List<File> archiveClasspath = ClassDataSharing.getArchiveClasspath();
+            if (archiveClasspath != null) {
+                try {
+                    logger.info("Starting with class data sharing archive");
+                    System.exit(ClassDataSharing.relaunch(archiveClasspath, Arrays.asList(args)));
+                } catch (IOException | InterruptedException e) {
+                    logger.fatal("Error starting with class data sharing");
+                    e.printStackTrace();
+                    System.exit(0);
+                }
+            }
+        }
+        if (offline) {
+            launchBundle(logger, args);
+            return;
+        }
+        // Skip straight to modlauncher if nothing changed since the last start
+        boolean devMode = Arrays.asList(args).contains("dev");
+        boolean provision = Arrays.asList(args).contains("provision");
+        boolean prepare = Arrays.asList(args).contains("prepare");
+        if (!devMode && !provision && !prepare) {
+            Phase phase = LaunchTimeline.start("launch plan");
+            Optional<JsonLaunchPlan> launchPlan = LaunchPlanCache.load();
+            if (launchPlan.isPresent()) {
+                phase.addCacheHits(1);
+                logger.info("Using cached launch plan (" + Constants.MINECRAFT_VERSION + ")");
+                LibraryProcessor.addClassPath(launchPlan.get().getClasspath().stream().map(File::new).collect(Collectors.toList()));
+                MIXINS.addAll(launchPlan.get().getMixins());
+                launchPlan.get().getPaths().forEach(path -> PATHS.add(Paths.get(path)));
+                startModLauncher(logger, args);
+                return;
+            }
+            phase.addCacheMisses(1);
+        }
+        LaunchTimeline.start("configuration");
         // Load default libraries from json to class
         JsonLibraries defaults = new JsonLibraries();
         try (Reader reader = new InputStreamReader(MainStart.class.getResourceAsStream("/" + Constants.DEFAULTS_JSON), StandardCharsets.UTF_8)) {
@@ -60,28 +134,10 @@ public class MainStart {
             e.printStackTrace();
             System.exit(0);
         }
-        // Download all the default libraries
-        LibraryProcessor.downloadLibrary("default libraries", false, defaults.getLibs());
-        // Add Minecraft json if does not exist
-        if (!Constants.MINECRAFT_JSON_PATH.toFile().exists()) {
-            try (InputStream inputStream = MainStart.class.getResourceAsStream("/" + Constants.MINECRAFT_JSON)) {
-                Files.copy(inputStream, Constants.MINECRAFT_JSON_PATH, StandardCopyOption.REPLACE_EXISTING);
-            } catch (IOException e) {
-                logger.fatal("Error copying Minecraft json");
-                e.printStackTrace();
-                System.exit(0);
-            }
-        }
-        // Load Minecraft from json to class
-        JsonMinecraft minecraft = new JsonMinecraft();
-        try (BufferedReader reader = new BufferedReader(new FileReader(Constants.MINECRAFT_JSON_PATH.toFile()))) {
-            Gson gson = new GsonBuilder().create();
-            minecraft = gson.fromJson(reader, JsonMinecraft.class);
-        } catch (IOException e) {
-            logger.fatal("Error reading Minecraft libraries json");
-            e.printStackTrace();
-            System.exit(0);
-        }
+        // Collect every library so they can all be downloaded together
+        Map<String, List<JsonLibraryInfo>> libraries = new LinkedHashMap<>();
+        libraries.put("default libraries", defaults.getLibs());
+        JsonMinecraft minecraft = loadMinecraft(logger);
         // Set minecraft version
         Constants.MINECRAFT_VERSION = minecraft.getVersion();
         Constants.setMinecraftVersion();
@@ -90,125 +146,97 @@ public class MainStart {
             logger.fatal("Failed to make minecraft directory");
             System.exit(0);
         }
-        if (!Constants.VERSION_JSON_PATH.toFile().exists()) {
-            // Read manifest and get version url
-            try (InputStreamReader manifestReader = new InputStreamReader(new URL(Constants.VERSION_MANIFEST_ENDPOINT).openStream())) {
-                MinecraftVersionManifest manifest = new Gson().fromJson(manifestReader, MinecraftVersionManifest.class);
-                Optional<MinecraftVersionManifestType> versionInfo = getVersion(manifest, Constants.MINECRAFT_VERSION);
-                // Read version json and get server info
-                if (versionInfo.isPresent() && versionInfo.get().getUrl() != null && !versionInfo.get().getUrl().isEmpty()) {
-                    try {
-                        logger.info("Downloading version json");
-                        downloadFile(new URL(versionInfo.get().getUrl()), Constants.VERSION_JSON_PATH.toFile());
-                    } catch (IOException e) {
-                        logger.fatal("Error creating version json url");
-                        e.printStackTrace();
-                        System.exit(0);
-                    }
-                } else {
-                    logger.fatal("Unable to get version info for Minecraft (" + Constants.MINECRAFT_VERSION + ")");
-                    System.exit(0);
-                }
-            } catch (IOException e) {
-                logger.fatal("Error reading Minecraft manifest url");
-                e.printStackTrace();
-                System.exit(0);
-            }
+        // Prepare mode gets other versions ready next to this one and never starts a server
+        if (prepare) {
+            prepareVersions(logger, minecraft, defaults.getLibs());
+            return;
         }
-        // Load from version file
-        MinecraftVersion minecraftVersion = null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(Constants.VERSION_JSON_PATH.toFile()))) {
+        MinecraftPaths minecraftPaths = MinecraftPaths.of(Constants.MINECRAFT_VERSION);
+        MinecraftVersion minecraftVersion = loadVersion(logger, minecraftPaths, null);
+        libraries.put("Minecraft libraries", getMinecraftLibraries(minecraftVersion));
+        // The server, its mappings and the libraries don't need each other until the remap, so only wait where it matters
+        ExecutorService pipeline = createPipeline();
+        CompletableFuture<Void> librariesLoaded = new CompletableFuture<>();
+        final JsonMinecraft minecraftJson = minecraft;
+        final MinecraftVersion version = minecraftVersion;
+        CompletableFuture<Void> minecraftReady = CompletableFuture.runAsync(() -> provideMinecraft(logger, minecraftJson, version, minecraftPaths, librariesLoaded, pipeline, provision), pipeline);
+        LaunchTimeline.start("mixins");
+        // Create the mixins folder
+        if (!Constants.MIXINS_PATH.toFile().exists() && !Constants.MIXINS_PATH.toFile().mkdirs()) {
+            logger.fatal("Failed to make mixins directory");
+            System.exit(0);
+        }
+        // Load mixins json
+        JsonMixins mixins = new JsonMixins();
+        try (Reader reader = new InputStreamReader(MainStart.class.getResourceAsStream("/mixins.json"), StandardCharsets.UTF_8)) {
             Gson gson = new GsonBuilder().create();
-            minecraftVersion = gson.fromJson(reader, MinecraftVersion.class);
+            mixins = gson.fromJson(reader, JsonMixins.class);
         } catch (IOException e) {
-            logger.fatal("Error reading Minecraft version json");
+            logger.fatal("Error reading mixins json");
             e.printStackTrace();
             System.exit(0);
         }
-        if (minecraftVersion == null) {
-            logger.fatal("Error finding Minecraft version json");
-            System.exit(0);
-        }
-        // Download libraries
-        List<JsonLibraryInfo> minecraftLibraries = new ArrayList<>();
-        for (MinecraftLibrary minecraftLibrary : minecraftVersion.getLibraries()) {
-            // Should not need mac only for a server. I think?
-            if (!minecraftLibrary.isMac()) {
-                String[] minecraftLib = minecraftLibrary.getName().split(":");
-                    minecraftLibraries.add(new JsonLibraryInfo("maven", minecraftLib[0], minecraftLib[1], minecraftLib[2], Constants.MINECRAFT_REPO));
-            }
-        }
-        // Download all the Minecraft libraries
-        LibraryProcessor.downloadLibrary("Minecraft libraries", false, minecraftLibraries);
-        // Download Minecraft and patch if we don't have the file
-        if (!Constants.SERVER_MAPPED_JAR_PATH.toFile().exists()) {
-            // Download server
-            if (!minecraftVersion.getDownloads().getServer().getUrl().isEmpty()) {
-                try {
-                    logger.info("Downloading Minecraft server (" + Constants.MINECRAFT_VERSION + ")");
-                    downloadFile(new URL(minecraftVersion.getDownloads().getServer().getUrl()), Constants.SERVER_JAR_PATH.toFile());
-                } catch (IOException e) {
-                    logger.fatal("Error creating server url");
-                    e.printStackTrace();
-                    System.exit(0);
-                }
-            } else {
-                logger.fatal("Error reading Minecraft server url");
-                System.exit(0);
-            }
-            // Cleanup Minecraft
-            logger.info("Cleaning up Minecraft");
-            deleteMinecraftTrash(Constants.SERVER_JAR_PATH.toFile());
-            logger.info("Cleaned up Minecraft");
-            // Download server mappings
-            if (!minecraftVersion.getDownloads().getServerMappings().getUrl().isEmpty()) {
+        // Download Mixins
+        if (!mixins.getMixins().isEmpty()) {
+            for (JsonMixin mixin : mixins.getMixins()) {
                 try {
-                    logger.info("Downloading server mappings");
-                    downloadFile(new URL(minecraftVersion.getDownloads().getServerMappings().getUrl()), Constants.SERVER_MAPPINGS_PATH.toFile());
+                    File file = Constants.MIXINS_PATH.resolve(mixin.getName() + ".jar").toFile();
+                    if (!file.exists() && mixin.getUrl() != null && !mixin.getUrl().trim().isEmpty()) {
+                        logger.info("Downloading mixin (" + mixin.getName() +")");
+                        URL url = new URL(mixin.getUrl());
+                        // Declared checksums come first, a published .sha1 is the fallback
+                        Checksum checksum = mixin.getChecksum();
+                        if (checksum == null) checksum = FileDownloader.readSidecar(url);
+                        if (checksum == null) logger.warn("No checksum for mixin (" + mixin.getName() + "), downloading it unverified");
+                        downloadFile(url, file, checksum);
+                    }
                 } catch (IOException e) {
-                    logger.fatal("Error creating server mappings url");
+                    logger.fatal("Error downloading mixin (" + mixin.getName() + ")");
                     e.printStackTrace();
                     System.exit(0);
                 }
-            } else {
-                logger.fatal("Error reading Minecraft server mappings url");
-                System.exit(0);
             }
-            // Convert Minecraft mappings
-            logger.info("Converting Minecraft mappings");
-            Mojang2Tsrg m2t = new Mojang2Tsrg();
-            try {
-                m2t.loadClasses(Constants.SERVER_MAPPINGS_PATH.toFile());
-                m2t.writeTsrg(Constants.SERVER_MAPPINGS_PATH.toFile(), Constants.SERVER_MAPPINGS_CONVERTED_PATH.toFile());
-            } catch (IOException e) {
-                logger.fatal("Error converting Minecraft server mappings");
-                e.printStackTrace();
-                System.exit(0);
+        }
+        // Scan mixins for their libraries and configs
+        List<File> mixinFiles = new ArrayList<>();
+        File[] mixinDirectory = Constants.MIXINS_PATH.toFile().listFiles();
+        if (mixinDirectory != null) {
+            for (File file : mixinDirectory) {
+                // Skip folders
+                if (!file.isFile()) continue;
+                // Make sure that it ends with .jar
+                if (!file.getName().endsWith(".jar")) continue;
+                mixinFiles.add(file);
             }
-            Constants.SERVER_MAPPINGS_PATH.toFile().delete();
-            // Remapping Minecraft
-            logger.info("Remapping Minecraft (This might take a bit)");
-            String[] specialSourceArgs = Stream.of(
-                    "--in-jar", Constants.SERVER_JAR_PATH.toFile().getAbsolutePath(),
-                    "--out-jar", Constants.SERVER_MAPPED_JAR_PATH.toFile().getAbsolutePath(),
-                    "--srg-in", Constants.SERVER_MAPPINGS_CONVERTED_PATH.toFile().getAbsolutePath()
-            ).toArray(String[]::new);
-            try {
-                Class<?> cls = Class.forName("net.md_5.specialsource.SpecialSource", true, ClassLoader.getSystemClassLoader());
-                Method method = cls.getMethod("main", String[].class);
-                method.invoke(null, (Object) specialSourceArgs);
-            } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | ClassNotFoundException e) {
-                logger.fatal("Error remapping Minecraft");
-                e.printStackTrace();
-                System.exit(0);
+            mixinFiles.sort(Comparator.comparing(File::getName));
+        }
+        List<JsonMixinJar> mixinJars = new ArrayList<>();
+        try {
+            mixinJars = MixinScanner.scan(mixinFiles);
+        } catch (IOException e) {
+            logger.fatal("Error loading mixins");
+            e.printStackTrace();
+            System.exit(0);
+        }
+        for (JsonMixinJar mixinJar : mixinJars) {
+            // Load libraries from json
+            if (mixinJar.getLibraries() != null) {
+                String properFileName = getProperFileName(new File(mixinJar.getPath()));
+                logger.info("Found libraries.json: " + properFileName);
+                libraries.put(properFileName + " libraries", mixinJar.getLibraries().getLibs());
             }
-            Constants.SERVER_JAR_PATH.toFile().delete();
-            Constants.SERVER_MAPPINGS_CONVERTED_PATH.toFile().delete();
-            logger.info("Remapped Minecraft");
         }
+        // Download all the libraries
+        LaunchTimeline.start("libraries");
+        LibraryProcessor.downloadLibraries(false, libraries);
+        librariesLoaded.complete(null);
+        // Whatever the server still needs is on the critical path now
+        LaunchTimeline.start("minecraft wait");
+        minecraftReady.join();
+        pipeline.shutdown();
         // Dev install if we can
         if (args.length >= 1) {
-            if (Arrays.asList(args).contains("dev")) {
+            if (devMode) {
                 logger.info("Dev mode started");
                 // Create base command
                 String platform = System.getProperty("os.name").toLowerCase();
@@ -273,97 +301,437 @@ public class MainStart {
                 System.exit(0);
             }
         }
-        // Create the mixins folder
-        if (!Constants.MIXINS_PATH.toFile().exists() && !Constants.MIXINS_PATH.toFile().mkdirs()) {
-            logger.fatal("Failed to make mixins directory");
-            System.exit(0);
-        }
         // Load Minecraft
+        LaunchTimeline.start("handoff");
         logger.info("Loading Minecraft remapped");
         PATHS.add(Constants.SERVER_MAPPED_JAR_PATH.toFile().toPath());
         logger.info("Loaded Minecraft remapped");
-        // Load mixins json
-        JsonMixins mixins = new JsonMixins();
-        try (Reader reader = new InputStreamReader(MainStart.class.getResourceAsStream("/mixins.json"), StandardCharsets.UTF_8)) {
+        // Load Mixins
+        for (JsonMixinJar mixinJar : mixinJars) {
+            File file = new File(mixinJar.getPath());
+            if (!mixinJar.getConfigs().isEmpty()) {
+                MIXINS.addAll(mixinJar.getConfigs());
+            }
+            // Add to class loader
+            PATHS.add(file.toPath());
+            logger.info("Loaded mixin: " + getProperFileName(file));
+        }
+        // Provision mode ships the result instead of starting the server
+        if (provision) {
+            LaunchTimeline.start("bundle");
+            logger.info("Writing launch bundle to " + Constants.BUNDLE_PATH.toAbsolutePath());
+            try {
+                LaunchBundle.write(Constants.BUNDLE_PATH, LibraryProcessor.getClasspath(), MIXINS, PATHS);
+            } catch (IOException e) {
+                logger.fatal("Error writing launch bundle");
+                e.printStackTrace();
+                System.exit(0);
+            }
+            writeTimeline(logger);
+            logger.info("Done with provisioning");
+            logger.info("Start with --offline and -Dlauncher.bundle=<path> to use it");
+            System.exit(0);
+        }
+        // Remember how we got here for the next start
+        try {
+            LaunchPlanCache.save(LibraryProcessor.getClasspath(), MIXINS, PATHS);
+        } catch (IOException e) {
+            logger.warn("Unable to save launch plan");
+            e.printStackTrace();
+        }
+        startModLauncher(logger, args);
+    }
+
+    private static void prepareVersions(Logger logger, JsonMinecraft minecraft, List<JsonLibraryInfo> defaultLibraries) {
+        LaunchTimeline.start("prepare");
+        List<String> versions = Constants.PREPARE_VERSIONS.isEmpty() ? Collections.singletonList(minecraft.getVersion()) : Constants.PREPARE_VERSIONS;
+        logger.info("Preparing Minecraft " + String.join(", ", versions));
+        // The remapper needs ASM from the default libraries, everything else only has to be on disk
+        LibraryProcessor.downloadLibrary("default libraries", false, defaultLibraries);
+        List<MinecraftPaths> versionPaths = versions.stream().map(MinecraftPaths::of).collect(Collectors.toList());
+        // Read once for every version that doesn't have its json yet
+        MinecraftVersionManifest manifest = versionPaths.stream().allMatch(paths -> paths.getVersionJson().toFile().exists()) ? null : loadManifest(logger);
+        ExecutorService pipeline = createPipeline();
+        CompletableFuture<Void> librariesLoaded = CompletableFuture.completedFuture(null);
+        List<CompletableFuture<MinecraftVersion>> versionJsons = new ArrayList<>();
+        List<CompletableFuture<Void>> servers = new ArrayList<>();
+        for (MinecraftPaths paths : versionPaths) {
+            CompletableFuture<MinecraftVersion> versionJson = CompletableFuture.supplyAsync(() -> loadVersion(logger, paths, manifest), pipeline);
+            versionJsons.add(versionJson);
+            // Mapping and remap caches are keyed by content, so classes that didn't change between versions are not remapped again
+            servers.add(versionJson.thenAcceptAsync(version -> provideMinecraft(logger, minecraft, version, paths, librariesLoaded, pipeline, true), pipeline));
+        }
+        // Libraries the versions have in common are only downloaded once
+        List<JsonLibraryInfo> libraries = new ArrayList<>();
+        versionJsons.forEach(versionJson -> libraries.addAll(getMinecraftLibraries(versionJson.join())));
+        LibraryProcessor.prefetchLibraries("Minecraft libraries", libraries);
+        CompletableFuture.allOf(servers.toArray(new CompletableFuture<?>[0])).join();
+        pipeline.shutdown();
+        writeTimeline(logger);
+        logger.info("Prepared Minecraft " + String.join(", ", versions) + " in " + LaunchTimeline.elapsed() + "ms");
+        System.exit(0);
+    }
+
+    private static ExecutorService createPipeline() {
+        AtomicInteger pipelineThreads = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Launcher-Pipeline-" + pipelineThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static JsonMinecraft loadMinecraft(Logger logger) {
+        // Add Minecraft json if does not exist
+        if (!Constants.MINECRAFT_JSON_PATH.toFile().exists()) {
+            try (InputStream inputStream = MainStart.class.getResourceAsStream("/" + Constants.MINECRAFT_JSON)) {
+                Files.copy(inputStream, Constants.MINECRAFT_JSON_PATH, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                logger.fatal("Error copying Minecraft json");
+                e.printStackTrace();
+                System.exit(0);
+            }
+        }
+        // Load Minecraft from json to class
+        JsonMinecraft minecraft = new JsonMinecraft();
+        try (BufferedReader reader = new BufferedReader(new FileReader(Constants.MINECRAFT_JSON_PATH.toFile()))) {
             Gson gson = new GsonBuilder().create();
-            mixins = gson.fromJson(reader, JsonMixins.class);
+            minecraft = gson.fromJson(reader, JsonMinecraft.class);
         } catch (IOException e) {
-            logger.fatal("Error reading mixins json");
+            logger.fatal("Error reading Minecraft libraries json");
             e.printStackTrace();
             System.exit(0);
         }
-        // Download Mixins
-        if (!mixins.getMixins().isEmpty()) {
-            for (JsonMixin mixin : mixins.getMixins()) {
+        return minecraft;
+    }
+
+    private static MinecraftVersionManifest loadManifest(Logger logger) {
+        MinecraftVersionManifest manifest = null;
+        try (Reader manifestReader = Files.newBufferedReader(MetadataCache.fetch(new URL(Constants.VERSION_MANIFEST_ENDPOINT)), StandardCharsets.UTF_8)) {
+            manifest = new Gson().fromJson(manifestReader, MinecraftVersionManifest.class);
+        } catch (IOException e) {
+            logger.fatal("Error reading Minecraft manifest url");
+            e.printStackTrace();
+            System.exit(0);
+        }
+        return manifest;
+    }
+
+    private static MinecraftVersion loadVersion(Logger logger, MinecraftPaths paths, MinecraftVersionManifest manifest) {
+        if (!paths.getVersionJson().toFile().exists()) {
+            // Read manifest and get version url
+            if (manifest == null) manifest = loadManifest(logger);
+            Optional<MinecraftVersionManifestType> versionInfo = getVersion(manifest, paths.getVersion());
+            // Read version json and get server info
+            if (versionInfo.isPresent() && versionInfo.get().getUrl() != null && !versionInfo.get().getUrl().isEmpty()) {
                 try {
-                    File file = Constants.MIXINS_PATH.resolve(mixin.getName() + ".jar").toFile();
-                    if (!file.exists() && mixin.getUrl() != null && !mixin.getUrl().trim().isEmpty()) {
-                        logger.info("Downloading mixin (" + mixin.getName() +")");
-                        downloadFile(new URL(mixin.getUrl()), file);
-                    }
+                    logger.info("Downloading version json (" + paths.getVersion() + ")");
+                    downloadMojangFile(new URL(versionInfo.get().getUrl()), url -> downloadFile(url, paths.getVersionJson().toFile()));
                 } catch (IOException e) {
-                    logger.fatal("Error downloading mixin (" + mixin.getName() + ")");
+                    logger.fatal("Error creating version json url");
                     e.printStackTrace();
                     System.exit(0);
                 }
+            } else {
+                logger.fatal("Unable to get version info for Minecraft (" + paths.getVersion() + ")");
+                System.exit(0);
             }
         }
-        // Load Mixins
-        File[] mixinFiles = Constants.MIXINS_PATH.toFile().listFiles();
-        if (mixinFiles != null) {
-            for (File file : mixinFiles) {
-                // Skip folders
-                if (!file.isFile()) continue;
-                // Make sure that it ends with .jar
-                if (!file.getName().endsWith(".jar")) continue;
-                // Since it is a file, and it ends with .jar, we can proceed with attempting to load it.
-                String properFileName = file.getName().substring(0, file.getName().length() - 4);
+        // Load from version file
+        MinecraftVersion minecraftVersion = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(paths.getVersionJson().toFile()))) {
+            Gson gson = new GsonBuilder().create();
+            minecraftVersion = gson.fromJson(reader, MinecraftVersion.class);
+        } catch (IOException e) {
+            logger.fatal("Error reading Minecraft version json");
+            e.printStackTrace();
+            System.exit(0);
+        }
+        if (minecraftVersion == null) {
+            logger.fatal("Error finding Minecraft version json");
+            System.exit(0);
+        }
+        return minecraftVersion;
+    }
+
+    private static List<JsonLibraryInfo> getMinecraftLibraries(MinecraftVersion minecraftVersion) {
+        List<JsonLibraryInfo> minecraftLibraries = new ArrayList<>();
+        for (MinecraftLibrary minecraftLibrary : minecraftVersion.getLibraries()) {
+            // Should not need mac only for a server. I think?
+            if (!minecraftLibrary.isMac()) {
+                String[] minecraftLib = minecraftLibrary.getName().split(":");
+                // Mojang already lists every library the server needs at the version it was tested with
+                minecraftLibraries.add(new JsonLibraryInfo("maven", minecraftLib[0], minecraftLib[1], minecraftLib[2], Constants.MINECRAFT_REPO, minecraftLibrary.getSha1(), true, false));
+            }
+        }
+        return minecraftLibraries;
+    }
+
+    private static void provideMinecraft(Logger logger, JsonMinecraft minecraft, MinecraftVersion minecraftVersion, MinecraftPaths paths, CompletableFuture<Void> libraries, Executor pipeline, boolean provision) {
+        // Download Minecraft and patch if we don't have the file
+        try (Phase minecraftPhase = LaunchTimeline.startParallel("minecraft")) {
+            Path remapped = paths.getServerMappedJar();
+            String server = minecraftVersion.getDownloads().getServer().getSha1();
+            String mappings = minecraftVersion.getDownloads().getServerMappings().getSha1();
+            if (remapped.toFile().exists()) {
+                // Anything that goes into a bundle is hashed in full, otherwise size and modified time are enough
+                RemapManifest.Status status = RemapManifest.check(remapped, server, mappings, minecraft.getExcludedPackages(), provision || Constants.REMAP_VERIFY);
+                if (status == RemapManifest.Status.VALID) {
+                    minecraftPhase.addCacheHits(1);
+                    return;
+                }
+                logger.warn("Remapped Minecraft is " + status.name().toLowerCase() + ", remapping again");
+                RemapManifest.delete(remapped);
+            }
+            minecraftPhase.addCacheMisses(1);
+            SharedStore store = SharedStore.get();
+            if (store == null) {
+                provisionMinecraft(logger, minecraft, minecraftVersion, paths, libraries, pipeline);
+            } else {
+                // Another instance on this host might have remapped the same server already
                 try {
-                    // Get jar file
-                    JarFile jarFile = new JarFile(file);
-                    // Load libraries from json
-                    ZipEntry libZip = jarFile.getEntry("libraries.json");
-                    if (libZip != null) {
-                        logger.info("Found libraries.json: " + properFileName);
-                        try (Reader reader = new InputStreamReader(jarFile.getInputStream(libZip))) {
-                            Gson gson = new GsonBuilder().create();
-                            JsonLibraries libraries = gson.fromJson(reader, JsonLibraries.class);
-                            logger.info("Loading libraries.json: " + properFileName);
-                            LibraryProcessor.downloadLibrary(properFileName + " libraries", false, libraries.getLibs());
-                        }
-                    }
-                    // Find all mixins for a jar.
-                    List<String> mixinsJson = findMixinEntry(jarFile);
-                    if (!mixinsJson.isEmpty()) {
-                        MIXINS.addAll(mixinsJson);
-                    }
-                    // Add to class loader
-                    PATHS.add(file.toPath());
+                    // Its key names the inputs, not the bytes, so every entry is read back before it is stored or linked
+                    store.provide(getRemappedKey(minecraft, minecraftVersion), remapped.toFile(), file -> RemapManifest.readEntries(file.toPath()), () -> provisionMinecraft(logger, minecraft, minecraftVersion, paths, libraries, pipeline));
                 } catch (IOException e) {
-                    logger.fatal("Error loading mixin (" + properFileName + ")");
+                    logger.fatal("Error using shared store for Minecraft remapped");
                     e.printStackTrace();
                     System.exit(0);
                 }
-                logger.info("Loaded mixin: " + properFileName);
+            }
+            // Written last, a jar without one is never trusted on the next start
+            try {
+                RemapManifest.write(remapped, server, mappings, minecraft.getExcludedPackages());
+            } catch (IOException e) {
+                logger.fatal("Error verifying Minecraft remapped (" + remapped.toAbsolutePath() + ")");
+                e.printStackTrace();
+                RemapManifest.delete(remapped);
+                System.exit(0);
             }
         }
-        // Start modlauncher
-        logger.info("Starting modlauncher...");
-        Launcher.main(Stream.concat(Stream.of("--launchTarget", "minecraft-server"), Arrays.stream(args)).toArray(String[]::new));
     }
 
-    private static List<String> findMixinEntry(JarFile file) {
-        List<String> mixins = new ArrayList<>();
-        for (final Enumeration<? extends ZipEntry> e = file.entries(); e.hasMoreElements();) {
-            final ZipEntry ze = e.nextElement();
-            if (!ze.isDirectory()) {
-                final String name = ze.getName();
-                if (name.startsWith("mixins.") && name.endsWith(".json")) {
-                    mixins.add(name);
+    private static void provisionMinecraft(Logger logger, JsonMinecraft minecraft, MinecraftVersion minecraftVersion, MinecraftPaths paths, CompletableFuture<Void> libraries, Executor pipeline) {
+        CompletableFuture<Void> server = CompletableFuture.runAsync(() -> downloadServer(logger, minecraftVersion, paths), pipeline);
+        CompletableFuture<Mappings> mappings = CompletableFuture.supplyAsync(() -> loadMappings(logger, minecraftVersion, paths), pipeline);
+        // Remapping needs ASM from the libraries as well as the server and its mappings
+        CompletableFuture.allOf(server, mappings, libraries).join();
+        remapServer(logger, minecraft, mappings.join(), paths);
+    }
+
+    private static void downloadServer(Logger logger, MinecraftVersion minecraftVersion, MinecraftPaths paths) {
+        Phase serverPhase = LaunchTimeline.startParallel("minecraft server");
+        try {
+            if (!minecraftVersion.getDownloads().getServer().getUrl().isEmpty()) {
+                try {
+                    logger.info("Downloading Minecraft server (" + paths.getVersion() + ")");
+                    downloadLargeFile(minecraftVersion.getDownloads().getServer(), paths.getServerJar().toFile());
+                } catch (IOException e) {
+                    logger.fatal("Error creating server url");
+                    e.printStackTrace();
+                    System.exit(0);
+                }
+            } else {
+                logger.fatal("Error reading Minecraft server url");
+                System.exit(0);
+            }
+        } finally {
+            serverPhase.close();
+        }
+    }
+
+    private static Mappings loadMappings(Logger logger, MinecraftVersion minecraftVersion, MinecraftPaths paths) {
+        // Parsed mappings are cached by their hash, so we only need the text the first time
+        try (Phase mappingsPhase = LaunchTimeline.startParallel("minecraft mappings")) {
+            MappingCache mappingCache = new MappingCache(Constants.MAPPINGS_CACHE_PATH);
+            Checksum mappingsChecksum = Checksum.sha1(minecraftVersion.getDownloads().getServerMappings().getSha1());
+            Mappings mappings = mappingCache.load(mappingsChecksum);
+            if (mappings != null) {
+                mappingsPhase.addCacheHits(1);
+                logger.info("Loaded cached Minecraft mappings (" + paths.getVersion() + ")");
+                return mappings;
+            }
+            mappingsPhase.addCacheMisses(1);
+            // Download server mappings
+            if (!minecraftVersion.getDownloads().getServerMappings().getUrl().isEmpty()) {
+                try {
+                    logger.info("Downloading server mappings (" + paths.getVersion() + ")");
+                    downloadLargeFile(minecraftVersion.getDownloads().getServerMappings(), paths.getServerMappings().toFile());
+                } catch (IOException e) {
+                    logger.fatal("Error creating server mappings url");
+                    e.printStackTrace();
+                    System.exit(0);
+                }
+            } else {
+                logger.fatal("Error reading Minecraft server mappings url");
+                System.exit(0);
+            }
+            // Load Minecraft mappings
+            logger.info("Loading Minecraft mappings (" + paths.getVersion() + ")");
+            try {
+                mappings = Mappings.readProGuard(paths.getServerMappings().toFile());
+                mappingCache.save(mappingsChecksum, mappings);
+            } catch (IOException e) {
+                logger.fatal("Error reading Minecraft server mappings");
+                e.printStackTrace();
+                System.exit(0);
+            }
+            paths.getServerMappings().toFile().delete();
+            return mappings;
+        }
+    }
+
+    private static void remapServer(Logger logger, JsonMinecraft minecraft, Mappings mappings, MinecraftPaths paths) {
+        // Remapping Minecraft
+        logger.info("Remapping Minecraft " + paths.getVersion() + " (This might take a bit)");
+        try (Phase remapPhase = LaunchTimeline.startParallel("minecraft remap")) {
+            // Classes that were already remapped with the same mappings come straight from the cache
+            JarRemapper remapper = new JarRemapper(mappings, new RemapCache(Constants.REMAP_CACHE_PATH), Constants.REMAP_THREADS);
+            // Bundled libraries are dropped while reading so the jar is only read and written once
+            remapper.remap(paths.getServerJar().toFile(), paths.getServerMappedJar().toFile(), new JarFilter(minecraft.getExcludedPackages()));
+            logger.info("Remap cache: " + remapper.getCacheHits() + " hits, " + remapper.getCacheMisses() + " misses");
+            remapPhase.addCacheHits(remapper.getCacheHits());
+            remapPhase.addCacheMisses(remapper.getCacheMisses());
+            remapPhase.addFiles(remapper.getCacheHits() + remapper.getCacheMisses());
+        } catch (IOException | RuntimeException e) {
+            logger.fatal("Error remapping Minecraft");
+            e.printStackTrace();
+            System.exit(0);
+        }
+        paths.getServerJar().toFile().delete();
+        logger.info("Remapped Minecraft (" + paths.getVersion() + ")");
+    }
+
+    private static String getRemappedKey(JsonMinecraft minecraft, MinecraftVersion minecraftVersion) {
+        String server = minecraftVersion.getDownloads().getServer().getSha1();
+        String mappings = minecraftVersion.getDownloads().getServerMappings().getSha1();
+        if (server == null || server.isEmpty() || mappings == null || mappings.isEmpty()) return null;
+        // Named after everything that goes into the remapped jar
+        String inputs = server + ":" + mappings + ":" + minecraft.getExcludedPackages() + ":" + JarRemapper.VERSION;
+        return Checksum.toHex(Checksum.createDigest("SHA-1").digest(inputs.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void launchBundle(Logger logger, String[] args) {
+        LaunchTimeline.start("bundle");
+        JsonBundle bundle = null;
+        try {
+            bundle = LaunchBundle.read(Constants.BUNDLE_PATH, Constants.BUNDLE_VERIFY);
+        } catch (IOException e) {
+            logger.fatal("Error reading launch bundle (" + Constants.BUNDLE_PATH.toAbsolutePath() + ")");
+            e.printStackTrace();
+            System.exit(0);
+        }
+        Constants.MINECRAFT_VERSION = bundle.getMinecraftVersion();
+        Constants.setMinecraftVersion();
+        logger.info("Using launch bundle (" + Constants.MINECRAFT_VERSION + ")");
+        LibraryProcessor.addClassPath(LaunchBundle.resolve(Constants.BUNDLE_PATH, bundle.getClasspath()));
+        MIXINS.addAll(bundle.getMixins());
+        LaunchBundle.resolve(Constants.BUNDLE_PATH, bundle.getPaths()).forEach(file -> PATHS.add(file.toPath()));
+        startModLauncher(logger, args);
+    }
+
+    private static void startModLauncher(Logger logger, String[] args) {
+        // Stay resident and run each server generation in a child started ahead of time
+        if (Arrays.asList(args).contains("supervise") && !Supervisor.isChild()) {
+            List<String> childArgs = Arrays.stream(args).filter(arg -> !arg.equals("supervise") && !arg.equals("train")).collect(Collectors.toList());
+            try {
+                logger.info("Starting supervisor");
+                System.exit(Supervisor.run(LibraryProcessor.getClasspath(), childArgs));
+            } catch (IOException | InterruptedException e) {
+                logger.fatal("Error running supervisor");
+                e.printStackTrace();
+                System.exit(0);
+            }
+        }
+        // Training needs the full class path, so it can only start once the launcher has worked it out
+        if (Arrays.asList(args).contains("train") && !ClassDataSharing.isChild()) {
+            if (!ClassDataSharing.isSupported()) {
+                logger.warn("Class data sharing archives need Java 13 or newer");
+                // Still worth recording the class load order for the packed server jar
+                ClassLoadOrder.startRecording();
+            } else {
+                List<String> childArgs = Arrays.stream(args).filter(arg -> !arg.equals("train")).collect(Collectors.toList());
+                try {
+                    logger.info("Training class data sharing archive, stop the server to write it");
+                    int exitCode = ClassDataSharing.train(LibraryProcessor.getClasspath(), childArgs);
+                    logger.info(ClassDataSharing.ARCHIVE_PATH.toFile().isFile() ? "Wrote class data sharing archive" : "No class data sharing archive was written");
+                    System.exit(exitCode);
+                } catch (IOException | InterruptedException e) {
+                    logger.fatal("Error training class data sharing archive");
+                    e.printStackTrace();
+                    System.exit(0);
                 }
             }
         }
-        return mixins;
+        if (Constants.PACK_RECORD) ClassLoadOrder.startRecording();
+        // Lay the server out in the order its classes are loaded
+        if (Constants.PACK_ENABLED) {
+            LaunchTimeline.start("pack");
+            packServer(logger);
+        }
+        if (Supervisor.isChild()) {
+            LaunchTimeline.start("parked");
+            Supervisor.park();
+        }
+        // Only hand mixin the configs that can apply to something in this server
+        LaunchTimeline.start("mixin selection");
+        Map<String, List<String>> targets = new HashMap<>();
+        try {
+            JsonMixinSelection selection = MixinSelection.select(PATHS, MIXINS);
+            MIXINS.retainAll(selection.getConfigs());
+            PATHS.removeIf(path -> selection.getSkippedPaths().contains(path.toString()));
+            selection.getSkippedConfigs().forEach(config -> logger.info("Skipping mixin config without targets: " + config));
+            selection.getSkippedPaths().forEach(path -> logger.info("Skipping unused mixin jar: " + path));
+            targets.putAll(selection.getTargets());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to select mixin configs, registering all of them");
+            e.printStackTrace();
+        }
+        // Reuse what mixin produced last time instead of transforming everything again
+        LaunchTimeline.start("transform cache");
+        try {
+            TransformCache.Mode mode = TransformCache.prepare(PATHS, MIXINS, targets, LibraryProcessor.getClasspath());
+            if (mode != TransformCache.Mode.DISABLED) logger.info("Transform cache: " + mode.name().toLowerCase());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to use transform cache");
+            e.printStackTrace();
+        }
+        // Record where the time went before handing off to modlauncher
+        writeTimeline(logger);
+        // Mappings only the launcher needed, modlauncher opens the jars it uses itself
+        JarFiles.release();
+        logger.info("Launcher ready in " + LaunchTimeline.elapsed() + "ms");
+        // Start modlauncher
+        logger.info("Starting modlauncher...");
+        Stream<String> launcherArgs = Arrays.stream(args).filter(arg -> !arg.equals("--offline") && !arg.equals("train"));
+        Launcher.main(Stream.concat(Stream.of("--launchTarget", "minecraft-server"), launcherArgs).toArray(String[]::new));
+    }
+
+    private static void packServer(Logger logger) {
+        Path server = PATHS.stream().filter(path -> path.getFileName().equals(Constants.SERVER_MAPPED_JAR_PATH.getFileName())).findFirst().orElse(null);
+        if (server == null) return;
+        try {
+            JsonPackIndex index = JarPacker.pack(server);
+            if (index == null) return;
+            PATHS.set(PATHS.indexOf(server), JarPacker.PACKED_PATH);
+            logger.info("Using packed server (" + index.getHot() + " of " + index.getEntries().size() + " entries in load order)");
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to pack server, using the remapped jar");
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeTimeline(Logger logger) {
+        try {
+            LaunchTimeline.write(Constants.TIMELINE_PATH);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to write launch timeline");
+            e.printStackTrace();
+        }
+    }
+
+    private static String getProperFileName(File file) {
+        // Since it is a file, and it ends with .jar, we can proceed with attempting to load it.
+        return file.getName().substring(0, file.getName().length() - 4);
     }
 
     public static void deleteFolder(File folder) {
@@ -404,44 +772,28 @@ public class MainStart {
         return manifest.getVersions().stream().filter(type -> type.getId().equals(version)).findFirst();
     }
 
-    private static void deleteMinecraftTrash(File file) {
-        Map<String, String> zipProperties = new HashMap<>();
-        zipProperties.put("create", "false");
-        try (FileSystem zipFS = FileSystems.newFileSystem(URI.create("jar:" + file.toURI().toString()), zipProperties)) {
-            Path[] allTheTrash = new Path[] {
-                    zipFS.getPath("com"), zipFS.getPath("io"), zipFS.getPath("it"),
-                    zipFS.getPath("javax"), zipFS.getPath("joptsimple"), zipFS.getPath("org")
-            };
-            for (Path trash : allTheTrash) {
-                delete(trash);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    static void downloadFile(URL url, File location) throws IOException {
+        FileDownloader.download(url, location);
     }
 
-    private static void delete(Path directory) {
-        try {
-            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    Files.delete(file);
-                    return FileVisitResult.CONTINUE;
-                }
+    static void downloadFile(URL url, File location, Checksum checksum) throws IOException {
+        FileDownloader.download(url, location, checksum);
+    }
 
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                    Files.delete(dir);
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException ignored) {
-        }
+    private static void downloadLargeFile(MinecraftVersionInfo info, File location) throws IOException {
+        downloadMojangFile(new URL(info.getUrl()), url -> ResumableDownloader.download(url, location, Checksum.sha1(info.getSha1()), info.getSize(),
+                Constants.DOWNLOAD_SEGMENTS, Constants.DOWNLOAD_RETRIES, Constants.DOWNLOAD_TIMEOUT));
     }
 
-    static void downloadFile(URL url, File location) throws IOException {
-        try (InputStream inputStream = url.openStream()) {
-            Files.copy(inputStream, location.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        }
+    private static void downloadMojangFile(URL url, MojangDownload download) throws IOException {
+        // These never change under their url, so unlike the version manifest they skip the metadata cache and come from a mirror when there is one
+        Repositories.fetchMirrored(url, (candidate, candidateUrl) -> {
+            download.download(candidateUrl);
+            return candidate;
+        });
+    }
+
+    private interface MojangDownload {
+        void download(URL url) throws IOException;
     }
 }
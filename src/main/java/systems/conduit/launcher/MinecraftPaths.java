@@ -0,0 +1,27 @@
+package systems.conduit.launcher;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+
+@RequiredArgsConstructor
+public class MinecraftPaths {
+
+    @Getter private final String version;
+    @Getter private final Path versionJson;
+    @Getter private final Path serverJar;
+    @Getter private final Path serverMappedJar;
+    @Getter private final Path serverMappings;
+
+    public static MinecraftPaths of(String version) {
+        // Every file is named after its version, so any number of them can sit side by side
+        return new MinecraftPaths(
+                version,
+                Constants.MINECRAFT_PATH.resolve(version + ".json"),
+                Constants.MINECRAFT_PATH.resolve("server-" + version + ".jar"),
+                Constants.MINECRAFT_PATH.resolve("server-" + version + "-remapped.jar"),
+                Constants.MINECRAFT_PATH.resolve("server-" + version + "-mappings.txt")
+        );
+    }
+}
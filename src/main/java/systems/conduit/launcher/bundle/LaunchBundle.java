@@ -0,0 +1,88 @@
+package systems.conduit.launcher.bundle;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.json.bundle.JsonBundle;
+import systems.conduit.launcher.json.bundle.JsonBundleFile;
+import systems.conduit.launcher.timing.LaunchTimeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+
+public class LaunchBundle {
+
+    public static final String MANIFEST = "bundle.json";
+
+    public static void write(Path bundle, List<File> classpath, List<String> mixins, List<Path> paths) throws IOException {
+        Files.createDirectories(bundle);
+        // Everything is stored relative to the bundle so it can be unpacked anywhere
+        Map<Path, String> files = new LinkedHashMap<>();
+        List<String> bundleClasspath = new ArrayList<>();
+        for (File jar : classpath) {
+            bundleClasspath.add(files.computeIfAbsent(jar.toPath(), LaunchBundle::getBundlePath));
+        }
+        List<String> bundlePaths = new ArrayList<>();
+        for (Path path : paths) {
+            bundlePaths.add(files.computeIfAbsent(path, LaunchBundle::getBundlePath));
+        }
+        List<JsonBundleFile> entries = new ArrayList<>();
+        for (Map.Entry<Path, String> file : files.entrySet()) {
+            Path target = bundle.resolve(file.getValue());
+            if (target.getParent() != null) Files.createDirectories(target.getParent());
+            Files.copy(file.getKey(), target, StandardCopyOption.REPLACE_EXISTING);
+            Checksum checksum = FileDownloader.hash(target.toFile(), "SHA-1");
+            entries.add(new JsonBundleFile(file.getValue(), Files.size(target), checksum.getValue()));
+            LaunchTimeline.addFiles(1);
+            LaunchTimeline.addBytes(Files.size(target));
+        }
+        JsonBundle manifest = new JsonBundle(Constants.MINECRAFT_VERSION, bundleClasspath, new ArrayList<>(mixins), bundlePaths, entries);
+        JsonFiles.writePretty(bundle.resolve(MANIFEST), manifest);
+    }
+
+    public static JsonBundle read(Path bundle, boolean verify) throws IOException {
+        JsonBundle manifest = JsonFiles.readOrThrow(bundle.resolve(MANIFEST), JsonBundle.class);
+        if (manifest == null || manifest.getMinecraftVersion() == null || manifest.getMinecraftVersion().isEmpty()) {
+            throw new IOException("Invalid bundle manifest in " + bundle);
+        }
+        for (JsonBundleFile file : manifest.getFiles()) {
+            File local = bundle.resolve(file.getPath()).toFile();
+            if (!local.isFile() || local.length() != file.getSize()) {
+                throw new IOException("Bundle file " + file.getPath() + " is missing or incomplete");
+            }
+            // Hashing every jar costs a full read, so only do it when asked
+            if (verify && !FileDownloader.hash(local, "SHA-1").getValue().equalsIgnoreCase(file.getSha1())) {
+                throw new IOException("Bundle file " + file.getPath() + " does not match its hash");
+            }
+            LaunchTimeline.addFiles(1);
+        }
+        return manifest;
+    }
+
+    public static List<File> resolve(Path bundle, List<String> paths) {
+        List<File> files = new ArrayList<>();
+        for (String path : paths) {
+            files.add(bundle.resolve(path).toFile());
+        }
+        return files;
+    }
+
+    private static String getBundlePath(Path path) {
+        Path working = Paths.get("").toAbsolutePath();
+        Path absolute = path.toAbsolutePath().normalize();
+        // Keep the launcher layout for anything from the working directory
+        if (absolute.startsWith(working)) return working.relativize(absolute).toString().replace(File.separatorChar, '/');
+        // Files from elsewhere can share a name, so keep them apart by where they came from
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        String parent = Checksum.toHex(digest.digest(String.valueOf(absolute.getParent()).getBytes(StandardCharsets.UTF_8))).substring(0, 12);
+        return "external/" + parent + "/" + absolute.getFileName();
+    }
+}
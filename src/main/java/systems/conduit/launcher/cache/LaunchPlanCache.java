@@ -0,0 +1,95 @@
+package systems.conduit.launcher.cache;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.MainStart;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.json.cache.JsonLaunchPlan;
+import systems.conduit.launcher.remap.RemapManifest;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class LaunchPlanCache {
+
+    public static Optional<JsonLaunchPlan> load() {
+        if (!Constants.LAUNCH_PLAN_PATH.toFile().isFile()) return Optional.empty();
+        JsonLaunchPlan plan = JsonFiles.read(Constants.LAUNCH_PLAN_PATH, JsonLaunchPlan.class);
+        if (plan == null || plan.getMinecraftVersion() == null || plan.getMinecraftVersion().isEmpty()) return Optional.empty();
+        // Paths depend on the version, so set it before fingerprinting
+        Constants.MINECRAFT_VERSION = plan.getMinecraftVersion();
+        Constants.setMinecraftVersion();
+        try {
+            if (!fingerprint().equals(plan.getFingerprint())) return Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        // The plan skips the remap stage, so the remapped jar has to hold up on its own
+        if (RemapManifest.verify(Constants.SERVER_MAPPED_JAR_PATH, Constants.REMAP_VERIFY) != RemapManifest.Status.VALID) return Optional.empty();
+        // Someone might have cleaned out a library by hand
+        for (String jar : plan.getClasspath()) {
+            if (!new File(jar).isFile()) return Optional.empty();
+        }
+        return Optional.of(plan);
+    }
+
+    public static void save(List<File> classpath, List<String> mixins, List<Path> paths) throws IOException {
+        JsonLaunchPlan plan = new JsonLaunchPlan(
+                Constants.MINECRAFT_VERSION,
+                fingerprint(),
+                classpath.stream().map(File::getPath).collect(Collectors.toList()),
+                mixins,
+                paths.stream().map(Path::toString).collect(Collectors.toList())
+        );
+        JsonFiles.write(Constants.LAUNCH_PLAN_PATH, plan);
+    }
+
+    public static void invalidate() {
+        Constants.LAUNCH_PLAN_PATH.toFile().delete();
+    }
+
+    private static String fingerprint() throws IOException {
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        // Bundled jsons can change with a launcher update
+        digestResource(digest, "/" + Constants.DEFAULTS_JSON);
+        digestResource(digest, "/mixins.json");
+        // So do the settings that decide where libraries come from and which ones are pulled in
+        String settings = Constants.RESOLVE_TRANSITIVE + "\n" + Constants.MIRRORS + "\n" + Constants.DEFAULT_REPO + "\n" + Constants.SHARED_STORE_PATH + "\n" + Constants.VERSION_MANIFEST_ENDPOINT + "\n";
+        digest.update(settings.getBytes(StandardCharsets.UTF_8));
+        digestFile(digest, Constants.MINECRAFT_JSON_PATH.toFile());
+        digestFile(digest, Constants.VERSION_JSON_PATH.toFile());
+        digestFile(digest, Constants.SERVER_MAPPED_JAR_PATH.toFile());
+        File[] mixinFiles = Constants.MIXINS_PATH.toFile().listFiles();
+        if (mixinFiles != null) {
+            Arrays.sort(mixinFiles, Comparator.comparing(File::getName));
+            for (File file : mixinFiles) {
+                if (file.isFile() && file.getName().endsWith(".jar")) digestFile(digest, file);
+            }
+        }
+        return Checksum.toHex(digest.digest());
+    }
+
+    private static void digestFile(MessageDigest digest, File file) {
+        // Size and modified time are enough to notice a changed input without reading it
+        String entry = file.getPath() + ":" + (file.isFile() ? file.length() + ":" + file.lastModified() : "missing") + "\n";
+        digest.update(entry.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void digestResource(MessageDigest digest, String resource) throws IOException {
+        try (InputStream inputStream = MainStart.class.getResourceAsStream(resource)) {
+            if (inputStream == null) throw new FileNotFoundException(resource);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+}
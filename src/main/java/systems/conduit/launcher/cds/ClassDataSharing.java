@@ -0,0 +1,160 @@
+package systems.conduit.launcher.cds;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.MainStart;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.json.cache.JsonCdsArchive;
+import systems.conduit.launcher.json.cache.JsonHashedFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class ClassDataSharing {
+
+    public static final Path ARCHIVE_PATH = Constants.CDS_PATH.resolve("launcher.jsa");
+    public static final Path CLASS_LIST_PATH = Constants.CDS_PATH.resolve("classes.lst");
+    public static final Path MANIFEST_PATH = Constants.CDS_PATH.resolve("cds.json");
+
+    public static boolean isSupported() {
+        // Dynamic archives need Java 13 or newer
+        String version = System.getProperty("java.specification.version");
+        return !version.startsWith("1.") && Integer.parseInt(version) >= 13;
+    }
+
+    public static boolean isChild() {
+        return Constants.CDS_CHILD;
+    }
+
+    public static boolean isArchiveValid(List<File> classpath) {
+        JsonCdsArchive archive = readArchive();
+        if (archive == null) return false;
+        try {
+            // The archive only matches the exact class path it was dumped with
+            return getClasspath(classpath).equals(archive.getClasspath());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static List<File> getArchiveClasspath() {
+        // Enough to relaunch without working out the class path first
+        JsonCdsArchive archive = readArchive();
+        if (archive == null) return null;
+        List<File> classpath = new ArrayList<>();
+        archive.getClasspath().forEach(path -> classpath.add(new File(path)));
+        return classpath;
+    }
+
+    public static int train(List<File> classpath, List<String> args) throws IOException, InterruptedException {
+        Files.createDirectories(Constants.CDS_PATH);
+        Files.deleteIfExists(ARCHIVE_PATH);
+        Files.deleteIfExists(MANIFEST_PATH);
+        // The JVM refuses to dump with an agent attached, which is fine since every jar is on the class path already
+        int exitCode = run(getTrainOptions(), classpath, args, false);
+        if (ARCHIVE_PATH.toFile().isFile()) writeManifest(classpath);
+        return exitCode;
+    }
+
+    static List<String> getTrainOptions() {
+        // The archive is written when the server stops, so the run covers a full start
+        return Arrays.asList(
+                "-XX:ArchiveClassesAtExit=" + ARCHIVE_PATH.toAbsolutePath(),
+                "-XX:DumpLoadedClassList=" + CLASS_LIST_PATH.toAbsolutePath(),
+                // The class list can't see into the transforming class loader, so the pack order is recorded separately
+                "-Dlauncher.packRecord=true"
+        );
+    }
+
+    public static int relaunch(List<File> classpath, List<String> args) throws IOException, InterruptedException {
+        return run(Collections.singletonList("-XX:SharedArchiveFile=" + ARCHIVE_PATH.toAbsolutePath()), classpath, args, true);
+    }
+
+    private static int run(List<String> options, List<File> classpath, List<String> args, boolean agent) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(getCommand(options, classpath, args, agent)).inheritIO().start();
+        // Stopping the launcher stops the server with it
+        Thread hook = new Thread(process::destroy, "Launcher-CDS-Shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+        int exitCode = process.waitFor();
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException ignored) {
+        }
+        return exitCode;
+    }
+
+    public static List<String> getCommand(List<String> options, List<File> classpath, List<String> args, boolean agent) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // Anything class data sharing related is decided again for the child
+            if (argument.startsWith("-XX:SharedArchiveFile") || argument.startsWith("-XX:ArchiveClassesAtExit") || argument.startsWith("-XX:DumpLoadedClassList") || argument.startsWith("-Xshare")) continue;
+            command.add(argument);
+        }
+        command.addAll(options);
+        command.add("-Dlauncher.cdsChild=true");
+        // Libraries have to be on the real class path to be archived, the agent covers anything added later
+        if (agent) command.add("-javaagent:" + getLauncherJar().getPath());
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, getClasspath(classpath)));
+        command.add(MainStart.class.getName());
+        command.addAll(args);
+        return command;
+    }
+
+    private static JsonCdsArchive readArchive() {
+        if (!ARCHIVE_PATH.toFile().isFile() || !MANIFEST_PATH.toFile().isFile()) return null;
+        JsonCdsArchive archive = JsonFiles.read(MANIFEST_PATH, JsonCdsArchive.class);
+        if (archive == null || archive.getClasspath().isEmpty() || !getJavaVersion().equals(archive.getJavaVersion())) return null;
+        try {
+            for (JsonHashedFile jar : archive.getJars()) {
+                File file = new File(jar.getPath());
+                if (!file.isFile()) return null;
+                // Only hash again when the file looks different
+                if (!jar.isUpToDate(file.length(), file.lastModified()) && !FileDownloader.hash(file, "SHA-1").getValue().equals(jar.getSha1())) return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return archive;
+    }
+
+    private static void writeManifest(List<File> classpath) throws IOException {
+        List<JsonHashedFile> jars = new ArrayList<>();
+        for (String path : getClasspath(classpath)) {
+            File file = new File(path);
+            jars.add(new JsonHashedFile(path, file.length(), file.lastModified(), FileDownloader.hash(file, "SHA-1").getValue()));
+        }
+        JsonCdsArchive archive = new JsonCdsArchive(getJavaVersion(), getClasspath(classpath), jars);
+        JsonFiles.write(MANIFEST_PATH, archive);
+    }
+
+    private static List<String> getClasspath(List<File> classpath) throws IOException {
+        // Same order every time, the launcher first
+        List<String> paths = new ArrayList<>();
+        paths.add(getLauncherJar().getPath());
+        for (File jar : classpath) {
+            String path = jar.getAbsolutePath();
+            if (!paths.contains(path)) paths.add(path);
+        }
+        return paths;
+    }
+
+    private static File getLauncherJar() throws IOException {
+        try {
+            return new File(MainStart.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsoluteFile();
+        } catch (URISyntaxException e) {
+            throw new IOException("Unable to find the launcher jar", e);
+        }
+    }
+
+    private static String getJavaVersion() {
+        return System.getProperty("java.vm.vendor") + " " + System.getProperty("java.vm.version");
+    }
+}
@@ -0,0 +1,51 @@
+package systems.conduit.launcher.download;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+@RequiredArgsConstructor
+public class Checksum {
+
+    @Getter private final String algorithm;
+    @Getter private final String value;
+
+    public static Checksum sha1(String value) {
+        return value == null || value.trim().isEmpty() ? null : new Checksum("SHA-1", value.trim().toLowerCase());
+    }
+
+    public static Checksum sha256(String value) {
+        return value == null || value.trim().isEmpty() ? null : new Checksum("SHA-256", value.trim().toLowerCase());
+    }
+
+    public MessageDigest createDigest() {
+        return createDigest(algorithm);
+    }
+
+    public static MessageDigest createDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Missing digest algorithm: " + algorithm, e);
+        }
+    }
+
+    public boolean matches(byte[] digest) {
+        return value.equals(toHex(digest));
+    }
+
+    public static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + ":" + value;
+    }
+}
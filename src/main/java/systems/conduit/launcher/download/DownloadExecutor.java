@@ -0,0 +1,170 @@
+package systems.conduit.launcher.download;
+
+import systems.conduit.launcher.repository.Repositories;
+import systems.conduit.launcher.store.SharedStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DownloadExecutor implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final int connectionsPerHost;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+    private final SharedStore store;
+
+    public DownloadExecutor(int threads, int connectionsPerHost) {
+        this(threads, connectionsPerHost, null);
+    }
+
+    public DownloadExecutor(int threads, int connectionsPerHost, SharedStore store) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "Launcher-Download-" + count.incrementAndGet());
+            // Never keep the launcher alive because of an idle download thread
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.connectionsPerHost = Math.max(1, connectionsPerHost);
+        this.store = store;
+    }
+
+    public Future<File> submit(URL url, File location, Checksum checksum) {
+        return submit(url, location, candidate -> download(candidate, location, checksum));
+    }
+
+    public Future<File> submitWithSidecar(URL url, File location) {
+        return submit(url, location, candidate -> download(candidate, location, FileDownloader.readSidecar(candidate)));
+    }
+
+    public Future<File> submit(String repository, String path, File location, Checksum checksum) {
+        CompletableFuture<File> future = new CompletableFuture<>();
+        attempt(Repositories.failover(repository, true, path), location, url -> download(url, location, checksum), future);
+        return future;
+    }
+
+    public Future<File> submitWithSidecar(String repository, String path, File location) {
+        return submitWithSidecar(repository, true, path, location);
+    }
+
+    public Future<File> submitWithSidecar(String repository, boolean includeDefault, String path, File location) {
+        CompletableFuture<File> future = new CompletableFuture<>();
+        // Every mirror gets asked for its own sidecar, they don't all have to publish one
+        attempt(Repositories.failover(repository, includeDefault, path), location, url -> download(url, location, FileDownloader.readSidecar(url)), future);
+        return future;
+    }
+
+    private void download(URL url, File location, Checksum checksum) throws IOException {
+        if (store == null) {
+            FileDownloader.download(url, location, checksum);
+            return;
+        }
+        // Another instance on this host might already have it
+        store.provide(checksum, location, () -> FileDownloader.download(url, location, checksum));
+    }
+
+    private Future<File> submit(URL url, File location, Download download) {
+        CompletableFuture<File> future = new CompletableFuture<>();
+        schedule(url.getHost(), () -> {
+            try {
+                download.run(url);
+                future.complete(location);
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private void attempt(Repositories.Failover failover, File location, Download download, CompletableFuture<File> future) {
+        String candidate = failover.next();
+        if (candidate == null) {
+            future.completeExceptionally(failover.getError());
+            return;
+        }
+        URL url;
+        try {
+            url = failover.getUrl(candidate);
+        } catch (IOException e) {
+            failover.failed(candidate, e);
+            attempt(failover, location, download, future);
+            return;
+        }
+        schedule(url.getHost(), () -> {
+            try {
+                download.run(url);
+                failover.succeeded(candidate);
+                future.complete(location);
+            } catch (IOException e) {
+                // Being stopped is not the repository's fault
+                if (Thread.currentThread().isInterrupted()) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                failover.failed(candidate, e);
+                // The next repository waits for a connection of its own without holding on to this thread
+                attempt(failover, location, download, future);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void schedule(String name, Runnable job) {
+        // Limit how many connections we have open to a single repository at once, the rest waits here instead of in a thread
+        Host host = hosts.computeIfAbsent(name, key -> new Host());
+        synchronized (host) {
+            if (host.active >= connectionsPerHost) {
+                host.queued.add(job);
+                return;
+            }
+            host.active++;
+        }
+        run(host, job);
+    }
+
+    private void run(Host host, Runnable job) {
+        try {
+            executor.execute(() -> {
+                try {
+                    job.run();
+                } finally {
+                    // Hand the connection straight to the next download for the same host
+                    Runnable next;
+                    synchronized (host) {
+                        next = host.queued.poll();
+                        if (next == null) host.active--;
+                    }
+                    if (next != null) run(host, next);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed, nothing queued will run any more
+            synchronized (host) {
+                host.active--;
+                host.queued.clear();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private interface Download {
+        void run(URL url) throws IOException;
+    }
+
+    private static class Host {
+
+        private final Deque<Runnable> queued = new ArrayDeque<>();
+        private int active;
+    }
+}
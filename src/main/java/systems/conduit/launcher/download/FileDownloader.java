@@ -0,0 +1,97 @@
+package systems.conduit.launcher.download;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.io.AtomicFiles;
+import systems.conduit.launcher.timing.LaunchTimeline;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+public class FileDownloader {
+
+    public static void download(URL url, File location) throws IOException {
+        download(url, location, null);
+    }
+
+    public static void download(URL url, File location, Checksum checksum) throws IOException {
+        Path target = location.toPath();
+        Path part = getPartPath(target);
+        MessageDigest digest = checksum != null ? checksum.createDigest() : null;
+        // Stream into a temp file so a killed launcher never leaves a truncated file at the real path
+        try (InputStream inputStream = digest != null ? new DigestInputStream(openConnection(url).getInputStream(), digest) : openConnection(url).getInputStream()) {
+            LaunchTimeline.addBytes(Files.copy(inputStream, part, StandardCopyOption.REPLACE_EXISTING));
+        } catch (IOException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        if (checksum != null && !checksum.matches(digest.digest())) {
+            Files.deleteIfExists(part);
+            throw new IOException("Checksum mismatch for " + url + " (expected " + checksum + ")");
+        }
+        commit(part, target);
+        LaunchTimeline.addFiles(1);
+    }
+
+    public static Checksum readSidecar(URL url) {
+        // Maven repositories publish a .sha1 next to every artifact, but not all of them do
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openConnection(new URL(url.toString() + ".sha1")).getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null || line.trim().isEmpty()) {
+                warnUnverified(url, "empty checksum file");
+                return null;
+            }
+            return Checksum.sha1(line.trim().split("\\s+")[0]);
+        } catch (FileNotFoundException e) {
+            warnUnverified(url, "no checksum published");
+            return null;
+        } catch (IOException e) {
+            warnUnverified(url, e.toString());
+            return null;
+        }
+    }
+
+    public static URLConnection openConnection(URL url) throws IOException {
+        return openConnection(url, Constants.DOWNLOAD_TIMEOUT);
+    }
+
+    static URLConnection openConnection(URL url, int timeout) throws IOException {
+        // A stalled connection would otherwise hang the launcher forever, and some hosts turn away the default agent
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        connection.setRequestProperty("User-Agent", Constants.USER_AGENT);
+        return connection;
+    }
+
+    private static void warnUnverified(URL url, String reason) {
+        // Also runs before logging is loaded, so this goes straight to the console
+        System.out.println("Downloading " + url + " without checksum verification (" + reason + ")");
+    }
+
+    public static Checksum hash(File file, String algorithm) throws IOException {
+        MessageDigest digest = Checksum.createDigest(algorithm);
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return new Checksum(algorithm, Checksum.toHex(digest.digest()));
+    }
+
+    static Path getPartPath(Path target) {
+        return target.resolveSibling(target.getFileName() + ".part");
+    }
+
+    static void commit(Path part, Path target) throws IOException {
+        AtomicFiles.move(part, target);
+    }
+}
@@ -0,0 +1,256 @@
+package systems.conduit.launcher.download;
+
+import systems.conduit.launcher.timing.LaunchTimeline;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ResumableDownloader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MIN_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    public static void download(URL url, File location, Checksum checksum, long size, int segments, int retries, int timeout) throws IOException {
+        Path target = location.toPath();
+        Path part = FileDownloader.getPartPath(target);
+        MessageDigest digest = checksum != null ? checksum.createDigest() : null;
+        // Split big files into ranges, but only when we are not already resuming a single stream
+        boolean segmented = false;
+        if (segments > 1 && size >= MIN_SEGMENT_SIZE * segments && !Files.exists(part)) {
+            segmented = downloadSegments(url, part, size, segments, retries, timeout, digest);
+        }
+        if (!segmented) {
+            deleteSegments(part, segments);
+            fetch(url, part, 0, size > 0 ? size - 1 : -1, digest, retries, timeout);
+        }
+        if (checksum != null && !checksum.matches(digest.digest())) {
+            // Bad data can not be resumed, so start over next time
+            Files.deleteIfExists(part);
+            throw new IOException("Checksum mismatch for " + url + " (expected " + checksum + ")");
+        }
+        FileDownloader.commit(part, target);
+        LaunchTimeline.addFiles(1);
+    }
+
+    private static boolean downloadSegments(URL url, Path part, long size, int segments, int retries, int timeout, MessageDigest digest) throws IOException {
+        long segmentSize = (size + segments - 1) / segments;
+        List<Path> segmentPaths = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(segments, runnable -> {
+            Thread thread = new Thread(runnable, "Launcher-Download-Segment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < segments; i++) {
+                long start = i * segmentSize;
+                long end = Math.min(size, start + segmentSize) - 1;
+                Path segmentPath = getSegmentPath(part, i);
+                segmentPaths.add(segmentPath);
+                futures.add(executor.submit(() -> {
+                    fetch(url, segmentPath, start, end, null, retries, timeout);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RangeNotSupportedException) {
+                        // The server can't do ranges, so fall back to one stream
+                        deleteSegments(part, segments);
+                        return false;
+                    }
+                    if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                    throw new IOException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while downloading " + url);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Join the segments and digest them in the same pass
+        try (OutputStream outputStream = new FileOutputStream(part.toFile())) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (Path segmentPath : segmentPaths) {
+                try (InputStream inputStream = Files.newInputStream(segmentPath)) {
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        outputStream.write(buffer, 0, read);
+                        if (digest != null) digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        }
+        deleteSegments(part, segments);
+        return true;
+    }
+
+    private static void fetch(URL url, Path file, long start, long end, MessageDigest digest, int retries, int timeout) throws IOException {
+        long expectedLength = end >= 0 ? end - start + 1 : -1;
+        long digested = 0;
+        for (int attempt = 0; ; attempt++) {
+            long offset = Files.exists(file) ? Files.size(file) : 0;
+            if (expectedLength >= 0 && offset > expectedLength) {
+                Files.delete(file);
+                offset = 0;
+            }
+            // Catch the digest up with whatever a previous run left behind
+            if (digest != null && offset > digested) {
+                digestRange(file, digested, offset, digest);
+                digested = offset;
+            }
+            if (expectedLength >= 0 && offset == expectedLength) return;
+            boolean resumed = false;
+            try {
+                URLConnection connection = FileDownloader.openConnection(url, timeout);
+                if (!(connection instanceof HttpURLConnection)) {
+                    // Nothing to resume for local files
+                    if (digest != null) digest.reset();
+                    try (InputStream inputStream = connection.getInputStream()) {
+                        digested = copy(inputStream, file, false, digest, 0);
+                    }
+                    return;
+                }
+                HttpURLConnection http = (HttpURLConnection) connection;
+                long from = start + offset;
+                if (from > 0 || end >= 0) http.setRequestProperty("Range", "bytes=" + from + "-" + (end >= 0 ? end : ""));
+                int code = http.getResponseCode();
+                if (code == 416 && end < 0 && offset > 0) {
+                    // We already have every byte the server has
+                    http.disconnect();
+                    return;
+                }
+                boolean append = code == HttpURLConnection.HTTP_PARTIAL;
+                resumed = append;
+                if (code == HttpURLConnection.HTTP_OK) {
+                    if (start > 0 || (end >= 0 && expectedLength != http.getContentLengthLong())) {
+                        http.disconnect();
+                        throw new RangeNotSupportedException(url);
+                    }
+                    // The server ignored the range, so start again from zero
+                    if (digest != null) digest.reset();
+                    digested = 0;
+                    offset = 0;
+                } else if (!append) {
+                    http.disconnect();
+                    throw new IOException("Unexpected response " + code + " for " + url);
+                }
+                long contentLength = http.getContentLengthLong();
+                try (InputStream inputStream = http.getInputStream()) {
+                    digested = copy(inputStream, file, append, digest, offset);
+                }
+                long received = digested - offset;
+                if (contentLength >= 0 && received < contentLength) {
+                    throw new EOFException("Connection closed after " + received + " of " + contentLength + " bytes for " + url);
+                }
+                if (expectedLength >= 0 && Files.size(file) < expectedLength) {
+                    throw new EOFException("Incomplete download for " + url);
+                }
+                return;
+            } catch (RangeNotSupportedException e) {
+                throw e;
+            } catch (IOException e) {
+                // Everything written so far has also been digested
+                if (e instanceof PartialDownloadException) digested = ((PartialDownloadException) e).total;
+                // Dropped range requests that still moved us forward don't count as a failed attempt
+                if (resumed && Files.exists(file) && Files.size(file) > offset) {
+                    attempt--;
+                    continue;
+                }
+                if (attempt >= retries) throw e;
+                sleep(attempt);
+            }
+        }
+    }
+
+    private static long copy(InputStream inputStream, Path file, boolean append, MessageDigest digest, long offset) throws IOException {
+        long total = offset;
+        try (OutputStream outputStream = new FileOutputStream(file.toFile(), append)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (digest != null) digest.update(buffer, 0, read);
+                total += read;
+            }
+        } catch (IOException e) {
+            // Keep what we got so the next attempt can continue from there
+            throw new PartialDownloadException(total, e);
+        } finally {
+            LaunchTimeline.addBytes(total - offset);
+        }
+        return total;
+    }
+
+    private static void digestRange(Path file, long from, long to, MessageDigest digest) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            long skipped = 0;
+            while (skipped < from) {
+                long skip = inputStream.skip(from - skipped);
+                if (skip <= 0) throw new EOFException("Unable to skip to " + from + " in " + file);
+                skipped += skip;
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = to - from;
+            int read;
+            while (remaining > 0 && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                digest.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    private static Path getSegmentPath(Path part, int index) {
+        return part.resolveSibling(part.getFileName() + "." + index);
+    }
+
+    private static void deleteSegments(Path part, int segments) throws IOException {
+        for (int i = 0; i < segments; i++) {
+            Files.deleteIfExists(getSegmentPath(part, i));
+        }
+    }
+
+    private static void sleep(int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(250L * (attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static class RangeNotSupportedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private RangeNotSupportedException(URL url) {
+            super("Server does not support range requests for " + url);
+        }
+    }
+
+    private static class PartialDownloadException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long total;
+
+        private PartialDownloadException(long total, IOException cause) {
+            super("Download interrupted after " + total + " bytes", cause);
+            this.total = total;
+        }
+    }
+}
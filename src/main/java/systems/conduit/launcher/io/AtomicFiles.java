@@ -0,0 +1,49 @@
+package systems.conduit.launcher.io;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class AtomicFiles {
+
+    public static void write(Path target, Output output) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        // Named per writer, so threads or launchers writing the same file never share a temp file
+        Path temp = target.resolveSibling(target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+                output.write(outputStream);
+            }
+            // Readers only ever see the old file or the whole new one
+            move(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static void writeText(Path target, TextOutput output) throws IOException {
+        write(target, outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            output.write(writer);
+            writer.flush();
+        });
+    }
+
+    public static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public interface Output {
+        void write(OutputStream outputStream) throws IOException;
+    }
+
+    public interface TextOutput {
+        void write(Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,43 @@
+package systems.conduit.launcher.io;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class JsonFiles {
+
+    private static final Gson gson = new GsonBuilder().create();
+    private static final Gson prettyGson = new GsonBuilder().setPrettyPrinting().create();
+
+    public static <T> T read(Path path, Class<T> type) {
+        // Caches treat a missing or broken file the same way, they build it again
+        if (!Files.isRegularFile(path)) return null;
+        try {
+            return readOrThrow(path, type);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static <T> T readOrThrow(Path path, Class<T> type) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, type);
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid json in " + path, e);
+        }
+    }
+
+    public static void write(Path path, Object value) throws IOException {
+        AtomicFiles.writeText(path, writer -> gson.toJson(value, writer));
+    }
+
+    public static void writePretty(Path path, Object value) throws IOException {
+        AtomicFiles.writeText(path, writer -> prettyGson.toJson(value, writer));
+    }
+}
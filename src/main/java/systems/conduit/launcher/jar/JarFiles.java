@@ -0,0 +1,30 @@
+package systems.conduit.launcher.jar;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class JarFiles {
+
+    // Every launcher step that reads a jar shares one mapping, so the central directory is only parsed once
+    private static final Map<Path, MappedJar> mapped = new ConcurrentHashMap<>();
+
+    public static MappedJar map(File file) throws IOException {
+        // Launcher steps read entries from the mapping, only the class loader needs a JarFile
+        Path path = file.toPath().toAbsolutePath().normalize();
+        synchronized (mapped) {
+            MappedJar jar = mapped.get(path);
+            if (jar != null && jar.getSize() == file.length() && jar.getLastModified() == file.lastModified()) return jar;
+            jar = new MappedJar(file);
+            mapped.put(path, jar);
+            return jar;
+        }
+    }
+
+    public static void release() {
+        // Mappings go away once nothing references them any more
+        mapped.clear();
+    }
+}
@@ -0,0 +1,201 @@
+package systems.conduit.launcher.jar;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+public class MappedJar {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    // Compressed bytes have to be copied out for the inflater, every thread keeps its own buffer for that
+    private static final ThreadLocal<byte[]> inputBuffers = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
+    private final File file;
+    private final long size;
+    private final long lastModified;
+    private final MappedByteBuffer buffer;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public MappedJar(File file) throws IOException {
+        this.file = file;
+        this.size = file.length();
+        this.lastModified = file.lastModified();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new ZipException("Jar too large to map: " + file);
+            // The mapping stays valid after the channel is closed, pages are shared with the page cache
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        readCentralDirectory();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    public ByteBuffer read(Entry entry) throws IOException {
+        ByteBuffer data = getData(entry);
+        // Stored entries are handed out straight from the mapping
+        if (entry.method == STORED) return data.asReadOnlyBuffer();
+        return ByteBuffer.wrap(inflate(entry, data));
+    }
+
+    public byte[] readBytes(Entry entry) throws IOException {
+        ByteBuffer data = getData(entry);
+        if (entry.method == DEFLATED) return inflate(entry, data);
+        byte[] bytes = new byte[entry.size];
+        data.get(bytes);
+        return bytes;
+    }
+
+    public byte[] readBytes(String name) throws IOException {
+        Entry entry = getEntry(name);
+        return entry != null ? readBytes(entry) : null;
+    }
+
+    public Manifest getManifest() throws IOException {
+        byte[] bytes = readBytes("META-INF/MANIFEST.MF");
+        return bytes != null ? new Manifest(new ByteArrayInputStream(bytes)) : null;
+    }
+
+    private void readCentralDirectory() throws IOException {
+        // The end record sits in the last 64k, behind an optional comment
+        int end = -1;
+        for (int i = buffer.limit() - 22; i >= Math.max(0, buffer.limit() - 22 - 0xFFFF); i--) {
+            if (buffer.getInt(i) == END_HEADER) {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) throw new ZipException("Not a jar: " + file);
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || offset == 0xFFFFFFFFL) throw new ZipException("ZIP64 jars are not supported: " + file);
+        int position = (int) offset;
+        for (int i = 0; i < count; i++) {
+            if (buffer.getInt(position) != CENTRAL_HEADER) throw new ZipException("Invalid central directory in " + file);
+            int method = buffer.getShort(position + 10) & 0xFFFF;
+            long crc = buffer.getInt(position + 16) & 0xFFFFFFFFL;
+            int compressedSize = buffer.getInt(position + 20);
+            int size = buffer.getInt(position + 24);
+            int nameLength = buffer.getShort(position + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(position + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(position + 32) & 0xFFFF;
+            int localOffset = buffer.getInt(position + 42);
+            if (compressedSize < 0 || size < 0 || localOffset < 0) throw new ZipException("ZIP64 jars are not supported: " + file);
+            byte[] name = new byte[nameLength];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(position + 46);
+            slice.get(name);
+            // Jar names are always read as UTF-8, same as JarFile
+            String entryName = new String(name, StandardCharsets.UTF_8);
+            entries.put(entryName, new Entry(entryName, method, crc, compressedSize, size, localOffset));
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private ByteBuffer getData(Entry entry) throws IOException {
+        if (entry.method != STORED && entry.method != DEFLATED) throw new ZipException("Unsupported compression for " + entry.name + " in " + file);
+        if (buffer.getInt(entry.offset) != LOCAL_HEADER) throw new ZipException("Invalid local header for " + entry.name + " in " + file);
+        // Local name and extra field lengths can differ from the central directory
+        int start = entry.offset + 30 + (buffer.getShort(entry.offset + 26) & 0xFFFF) + (buffer.getShort(entry.offset + 28) & 0xFFFF);
+        ByteBuffer data = buffer.duplicate();
+        data.position(start);
+        data.limit(start + entry.compressedSize);
+        return data.slice();
+    }
+
+    private byte[] inflate(Entry entry, ByteBuffer data) throws IOException {
+        byte[] input = inputBuffers.get();
+        if (input.length < entry.compressedSize) {
+            input = new byte[Math.max(entry.compressedSize, input.length * 2)];
+            inputBuffers.set(input);
+        }
+        data.get(input, 0, entry.compressedSize);
+        // The size is known up front, so the output is allocated once at its final length
+        byte[] output = new byte[entry.size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input, 0, entry.compressedSize);
+            int length = 0;
+            while (length < output.length) {
+                int read = inflater.inflate(output, length, output.length - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+                length += read;
+            }
+            if (length != output.length) throw new ZipException("Truncated entry " + entry.name + " in " + file);
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt entry " + entry.name + " in " + file + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return output;
+    }
+
+    public static class Entry {
+
+        private final String name;
+        private final int method;
+        private final long crc;
+        private final int compressedSize;
+        private final int size;
+        private final int offset;
+
+        private Entry(String name, int method, long crc, int compressedSize, int size, int offset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getCrc() {
+            return crc;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+}
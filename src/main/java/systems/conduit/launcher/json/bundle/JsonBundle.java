@@ -0,0 +1,21 @@
+package systems.conduit.launcher.json.bundle;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JsonBundle {
+
+    @Getter private final String minecraftVersion;
+    @Getter private final List<String> classpath;
+    @Getter private final List<String> mixins;
+    @Getter private final List<String> paths;
+    @Getter private final List<JsonBundleFile> files;
+
+    public JsonBundle() {
+        this("", new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+}
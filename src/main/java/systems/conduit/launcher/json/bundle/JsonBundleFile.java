@@ -0,0 +1,16 @@
+package systems.conduit.launcher.json.bundle;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class JsonBundleFile {
+
+    @Getter private final String path;
+    @Getter private final long size;
+    @Getter private final String sha1;
+
+    public JsonBundleFile() {
+        this("", 0, "");
+    }
+}
@@ -0,0 +1,19 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JsonCdsArchive {
+
+    @Getter private final String javaVersion;
+    @Getter private final List<String> classpath;
+    @Getter private final List<JsonHashedFile> jars;
+
+    public JsonCdsArchive() {
+        this("", new ArrayList<>(), new ArrayList<>());
+    }
+}
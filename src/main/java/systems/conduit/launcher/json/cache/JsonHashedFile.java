@@ -0,0 +1,17 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class JsonHashedFile {
+
+    @Getter private final String path;
+    @Getter private final long size;
+    @Getter private final long lastModified;
+    @Getter private final String sha1;
+
+    public boolean isUpToDate(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+}
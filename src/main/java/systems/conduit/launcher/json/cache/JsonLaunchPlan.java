@@ -0,0 +1,21 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JsonLaunchPlan {
+
+    @Getter private final String minecraftVersion;
+    @Getter private final String fingerprint;
+    @Getter private final List<String> classpath;
+    @Getter private final List<String> mixins;
+    @Getter private final List<String> paths;
+
+    public JsonLaunchPlan() {
+        this("", "", new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+}
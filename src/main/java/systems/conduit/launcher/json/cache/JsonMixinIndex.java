@@ -0,0 +1,12 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class JsonMixinIndex {
+
+    @Getter private List<JsonMixinJar> jars = new ArrayList<>();
+
+}
@@ -0,0 +1,23 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import systems.conduit.launcher.json.download.JsonLibraries;
+
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class JsonMixinJar {
+
+    @Getter private final String path;
+    @Getter private final long size;
+    @Getter private final long lastModified;
+    @Getter private final List<String> configs;
+    @Getter private final JsonLibraries libraries;
+    @Getter private final Map<String, String> manifest;
+
+    public boolean isUpToDate(long size, long lastModified) {
+        return this.size == size && this.lastModified == lastModified;
+    }
+}
@@ -0,0 +1,24 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class JsonMixinSelection {
+
+    @Getter private final String key;
+    @Getter private final List<String> configs;
+    @Getter private final List<String> skippedConfigs;
+    @Getter private final List<String> skippedPaths;
+    // Only configs we could read the targets of
+    @Getter private final Map<String, List<String>> targets;
+
+    public JsonMixinSelection() {
+        this("", new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new HashMap<>());
+    }
+}
@@ -0,0 +1,23 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JsonPackIndex {
+
+    @Getter private final String key;
+    @Getter private final String source;
+    // Classes seen in the load order, they sit at the front of the jar
+    @Getter private final int hot;
+    @Getter private final boolean stored;
+    @Getter private final boolean strippedDebug;
+    @Getter private final List<JsonPackEntry> entries;
+
+    public JsonPackIndex() {
+        this("", "", 0, false, false, new ArrayList<>());
+    }
+}
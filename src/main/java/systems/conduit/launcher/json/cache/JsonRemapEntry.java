@@ -0,0 +1,12 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class JsonRemapEntry {
+
+    @Getter private final String name;
+    @Getter private final long size;
+    @Getter private final long crc;
+}
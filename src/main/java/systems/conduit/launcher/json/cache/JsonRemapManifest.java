@@ -0,0 +1,24 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JsonRemapManifest {
+
+    // Everything that went into the remapped jar
+    @Getter private final String server;
+    @Getter private final String mappings;
+    @Getter private final List<String> excludedPackages;
+    @Getter private final String remapper;
+    // And what came out of it
+    @Getter private final JsonHashedFile jar;
+    @Getter private final List<JsonRemapEntry> entries;
+
+    public JsonRemapManifest() {
+        this("", "", new ArrayList<>(), "", null, new ArrayList<>());
+    }
+}
@@ -0,0 +1,27 @@
+package systems.conduit.launcher.json.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class JsonTransformIndex {
+
+    @Getter private final String key;
+    @Getter private final List<JsonHashedFile> inputs;
+    // Configs whose targets could not be read, the cache is never served while there are any
+    @Getter private final List<String> unknownConfigs;
+    @Getter private final List<String> targets;
+    // Transformed class name to the hash of the class it was made from, empty for generated classes
+    @Getter private final Map<String, String> classes;
+    // Set once a fresh transform produced the same classes again
+    @Getter private final boolean verified;
+
+    public JsonTransformIndex() {
+        this("", new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new HashMap<>(), false);
+    }
+}
@@ -1,8 +1,10 @@
 package systems.conduit.launcher.json.download;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+@AllArgsConstructor
 @RequiredArgsConstructor
 public class JsonLibraryInfo {
 
@@ -11,5 +13,17 @@ public class JsonLibraryInfo {
     @Getter private final String artifactId;
     @Getter private final String version;
     @Getter private final String url;
+    @Getter private String sha1;
+    private Boolean pinned;
+    private Boolean transitive;
+
+    public boolean isPinned() {
+        return pinned != null && pinned;
+    }
+
+    public boolean isTransitive() {
+        // Dependencies from the pom are followed unless a library opts out
+        return transitive == null || transitive;
+    }
 
 }
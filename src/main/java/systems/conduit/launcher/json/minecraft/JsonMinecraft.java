@@ -2,8 +2,13 @@ package systems.conduit.launcher.json.minecraft;
 
 import lombok.Getter;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class JsonMinecraft {
 
     @Getter private String version = "";
+    // Libraries bundled into the server jar that we load ourselves
+    @Getter private List<String> excludedPackages = Arrays.asList("com", "io", "it", "javax", "joptsimple", "org");
 
 }
@@ -9,6 +9,7 @@ public class MinecraftLibrary {
 
     @Getter private String name = "";
     @Getter private List<MinecraftRule> rules = new ArrayList<>();
+    @Getter private MinecraftLibraryDownloads downloads = new MinecraftLibraryDownloads();
 
     public boolean isMac() {
         for (MinecraftRule rule : rules) {
@@ -16,4 +17,9 @@ public class MinecraftLibrary {
         }
         return false;
     }
+
+    public String getSha1() {
+        if (downloads == null || downloads.getArtifact() == null) return null;
+        return downloads.getArtifact().getSha1();
+    }
 }
@@ -0,0 +1,9 @@
+package systems.conduit.launcher.json.minecraft;
+
+import lombok.Getter;
+
+public class MinecraftLibraryDownloads {
+
+    @Getter private MinecraftVersionInfo artifact = new MinecraftVersionInfo();
+
+}
@@ -5,5 +5,7 @@ import lombok.Getter;
 public class MinecraftVersionInfo {
 
     @Getter private String url = "";
+    @Getter private String sha1 = "";
+    @Getter private long size = 0;
 
 }
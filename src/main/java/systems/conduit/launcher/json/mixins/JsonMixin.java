@@ -1,10 +1,18 @@
 package systems.conduit.launcher.json.mixins;
 
 import lombok.Getter;
+import systems.conduit.launcher.download.Checksum;
 
 public class JsonMixin {
 
     @Getter private String name = "";
     @Getter private String url = "";
+    @Getter private String sha256 = "";
+    @Getter private String sha1 = "";
 
+    public Checksum getChecksum() {
+        // The stronger hash wins when both are given
+        Checksum checksum = Checksum.sha256(sha256);
+        return checksum != null ? checksum : Checksum.sha1(sha1);
+    }
 }
@@ -0,0 +1,20 @@
+package systems.conduit.launcher.json.timing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class JsonPhase {
+
+    @Getter private final String name;
+    @Getter private final long start;
+    @Getter private final long duration;
+    @Getter private final long bytes;
+    @Getter private final int files;
+    @Getter private final int cacheHits;
+    @Getter private final int cacheMisses;
+
+    public JsonPhase() {
+        this("", 0, 0, 0, 0, 0, 0);
+    }
+}
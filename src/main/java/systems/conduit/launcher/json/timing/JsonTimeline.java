@@ -0,0 +1,21 @@
+package systems.conduit.launcher.json.timing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JsonTimeline {
+
+    @Getter private final String minecraftVersion;
+    @Getter private final long timestamp;
+    @Getter private final long jvmStartup;
+    @Getter private final long total;
+    @Getter private final List<JsonPhase> phases;
+
+    public JsonTimeline() {
+        this("", 0, 0, 0, new ArrayList<>());
+    }
+}
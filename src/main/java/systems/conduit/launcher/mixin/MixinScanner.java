@@ -0,0 +1,109 @@
+package systems.conduit.launcher.mixin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.json.cache.JsonMixinIndex;
+import systems.conduit.launcher.json.cache.JsonMixinJar;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.jar.MappedJar;
+import systems.conduit.launcher.json.download.JsonLibraries;
+import systems.conduit.launcher.timing.LaunchTimeline;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+public class MixinScanner {
+
+    public static List<JsonMixinJar> scan(List<File> jars) throws IOException {
+        Map<String, JsonMixinJar> cached = new HashMap<>();
+        for (JsonMixinJar jar : readIndex().getJars()) {
+            cached.put(jar.getPath(), jar);
+        }
+        List<JsonMixinJar> results = new ArrayList<>();
+        List<Future<JsonMixinJar>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(jars.size(), Runtime.getRuntime().availableProcessors())), runnable -> {
+            Thread thread = new Thread(runnable, "Launcher-Mixin-Scanner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean changed = cached.size() != jars.size();
+        try {
+            for (File jar : jars) {
+                // Unchanged jars never get opened again
+                JsonMixinJar index = cached.get(jar.getPath());
+                if (index != null && index.isUpToDate(jar.length(), jar.lastModified())) {
+                    futures.add(CompletableFuture.completedFuture(index));
+                    LaunchTimeline.addCacheHits(1);
+                } else {
+                    changed = true;
+                    LaunchTimeline.addCacheMisses(1);
+                    futures.add(executor.submit(() -> scan(jar)));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new IOException("Error scanning mixin jar " + jars.get(i).getName(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while scanning mixin jars");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (changed) writeIndex(results);
+        LaunchTimeline.addFiles(jars.size());
+        return results;
+    }
+
+    private static JsonMixinJar scan(File file) throws IOException {
+        long size = file.length();
+        long lastModified = file.lastModified();
+        // Only the central directory is read until we ask for an entry, and the handle is shared with later steps
+        MappedJar jarFile = JarFiles.map(file);
+        List<String> configs = new ArrayList<>();
+        for (MappedJar.Entry ze : jarFile.getEntries()) {
+            if (!ze.isDirectory()) {
+                final String name = ze.getName();
+                if (name.startsWith("mixins.") && name.endsWith(".json")) {
+                    configs.add(name);
+                }
+            }
+        }
+        JsonLibraries libraries = null;
+        byte[] libBytes = jarFile.readBytes("libraries.json");
+        if (libBytes != null) {
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(libBytes), StandardCharsets.UTF_8)) {
+                Gson gson = new GsonBuilder().create();
+                libraries = gson.fromJson(reader, JsonLibraries.class);
+            }
+        }
+        Map<String, String> manifest = new LinkedHashMap<>();
+        Manifest jarManifest = jarFile.getManifest();
+        if (jarManifest != null) {
+            for (Map.Entry<Object, Object> attribute : jarManifest.getMainAttributes().entrySet()) {
+                manifest.put(((Attributes.Name) attribute.getKey()).toString(), String.valueOf(attribute.getValue()));
+            }
+        }
+        return new JsonMixinJar(file.getPath(), size, lastModified, configs, libraries, manifest);
+    }
+
+    private static JsonMixinIndex readIndex() {
+        JsonMixinIndex index = JsonFiles.read(Constants.MIXIN_INDEX_PATH, JsonMixinIndex.class);
+        return index != null ? index : new JsonMixinIndex();
+    }
+
+    private static void writeIndex(List<JsonMixinJar> jars) throws IOException {
+        JsonMixinIndex index = new JsonMixinIndex();
+        index.getJars().addAll(jars);
+        JsonFiles.write(Constants.MIXIN_INDEX_PATH, index);
+    }
+}
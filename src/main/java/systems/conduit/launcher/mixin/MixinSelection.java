@@ -0,0 +1,84 @@
+package systems.conduit.launcher.mixin;
+
+import com.google.gson.JsonObject;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.jar.MappedJar;
+import systems.conduit.launcher.json.cache.JsonMixinSelection;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+
+public class MixinSelection {
+
+    // Bump when the selection rules change so old results are ignored
+    private static final String VERSION = "1";
+
+    public static JsonMixinSelection select(List<Path> paths, List<String> mixins) throws IOException {
+        String key = getKey(paths, mixins);
+        JsonMixinSelection cached = read();
+        if (cached != null && key.equals(cached.getKey())) return cached;
+        List<String> configs = new ArrayList<>();
+        List<String> skippedConfigs = new ArrayList<>();
+        Map<String, List<String>> targets = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : MixinTargets.scan(paths, mixins).entrySet()) {
+            // Configs with nothing to apply to in this server never get registered
+            if (entry.getValue() != null && entry.getValue().isEmpty()) {
+                skippedConfigs.add(entry.getKey());
+                continue;
+            }
+            configs.add(entry.getKey());
+            if (entry.getValue() != null) targets.put(entry.getKey(), entry.getValue());
+        }
+        List<String> skippedPaths = new ArrayList<>();
+        for (Path path : paths) {
+            if (isUnused(path, skippedConfigs)) skippedPaths.add(path.toString());
+        }
+        JsonMixinSelection selection = new JsonMixinSelection(key, configs, skippedConfigs, skippedPaths, targets);
+        write(selection);
+        return selection;
+    }
+
+    private static boolean isUnused(Path path, List<String> skippedConfigs) throws IOException {
+        // A jar can only go when it holds nothing but mixins that will never be applied
+        MappedJar jar = JarFiles.map(path.toFile());
+        List<String> packages = new ArrayList<>();
+        for (String config : skippedConfigs) {
+            if (jar.getEntry(config) == null) continue;
+            JsonObject json = MixinTargets.readConfig(Collections.singletonList(path), config);
+            if (json == null) return false;
+            packages.add(MixinTargets.getPackage(json).replace('.', '/') + "/");
+        }
+        if (packages.isEmpty()) return false;
+        for (MappedJar.Entry entry : jar.getEntries()) {
+            String name = entry.getName();
+            if (name.endsWith(".class") && packages.stream().noneMatch(name::startsWith)) return false;
+        }
+        return true;
+    }
+
+    private static String getKey(List<Path> paths, List<String> mixins) {
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        for (Path path : paths) {
+            // Size and modified time are enough to notice a changed jar without reading it
+            File file = path.toFile();
+            digest.update((file.getPath() + ":" + file.length() + ":" + file.lastModified() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((String.join(",", mixins) + "\n" + VERSION).getBytes(StandardCharsets.UTF_8));
+        return Checksum.toHex(digest.digest());
+    }
+
+    private static JsonMixinSelection read() {
+        return JsonFiles.read(Constants.MIXIN_SELECTION_PATH, JsonMixinSelection.class);
+    }
+
+    private static void write(JsonMixinSelection selection) throws IOException {
+        JsonFiles.write(Constants.MIXIN_SELECTION_PATH, selection);
+    }
+}
@@ -0,0 +1,99 @@
+package systems.conduit.launcher.mixin;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.objectweb.asm.*;
+import systems.conduit.launcher.jar.JarFiles;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+public class MixinTargets {
+
+    private static final String MIXIN_ANNOTATION = "Lorg/spongepowered/asm/mixin/Mixin;";
+
+    public static Map<String, List<String>> scan(List<Path> paths, List<String> configs) throws IOException {
+        Map<String, List<String>> targets = new LinkedHashMap<>();
+        for (String config : configs) {
+            targets.put(config, scan(paths, config));
+        }
+        return targets;
+    }
+
+    public static List<String> scan(List<Path> paths, String config) throws IOException {
+        // Every class a server side mixin of the config is applied to, as internal names
+        JsonObject json = readConfig(paths, config);
+        // A config plugin can run code and pick targets itself, so we can't tell what it needs
+        if (json == null || json.has("plugin")) return null;
+        Set<String> targets = new TreeSet<>();
+        String mixinPackage = getPackage(json);
+        for (String section : Arrays.asList("mixins", "server")) {
+            if (!json.has(section) || !json.get(section).isJsonArray()) continue;
+            for (JsonElement mixin : json.getAsJsonArray(section)) {
+                String name = (mixinPackage.isEmpty() ? "" : mixinPackage + ".") + mixin.getAsString();
+                byte[] bytes = readEntry(paths, name.replace('.', '/') + ".class");
+                if (bytes == null) return null;
+                collect(bytes, targets);
+            }
+        }
+        // Targets that are not in any jar are never loaded, so they can never be transformed
+        List<String> result = new ArrayList<>();
+        for (String target : targets) {
+            if (exists(paths, target + ".class")) result.add(target);
+        }
+        return result;
+    }
+
+    public static String getPackage(JsonObject config) {
+        return config.has("package") ? config.get("package").getAsString() : "";
+    }
+
+    private static void collect(byte[] bytes, Set<String> targets) {
+        new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM7) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                if (!MIXIN_ANNOTATION.equals(descriptor)) return null;
+                return new AnnotationVisitor(Opcodes.ASM7) {
+                    @Override
+                    public AnnotationVisitor visitArray(String name) {
+                        return new AnnotationVisitor(Opcodes.ASM7) {
+                            @Override
+                            public void visit(String ignored, Object value) {
+                                // value holds class literals, targets holds names for classes we can't reference
+                                if (value instanceof Type) targets.add(((Type) value).getInternalName());
+                                else if (value instanceof String) targets.add(((String) value).replace('.', '/'));
+                            }
+                        };
+                    }
+                };
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+
+    public static JsonObject readConfig(List<Path> paths, String name) throws IOException {
+        byte[] bytes = readEntry(paths, name);
+        if (bytes == null) return null;
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+            JsonElement element = new JsonParser().parse(reader);
+            return element.isJsonObject() ? element.getAsJsonObject() : null;
+        }
+    }
+
+    private static boolean exists(List<Path> paths, String name) throws IOException {
+        for (Path path : paths) {
+            if (JarFiles.map(path.toFile()).getEntry(name) != null) return true;
+        }
+        return false;
+    }
+
+    public static byte[] readEntry(List<Path> paths, String name) throws IOException {
+        for (Path path : paths) {
+            byte[] bytes = JarFiles.map(path.toFile()).readBytes(name);
+            if (bytes != null) return bytes;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+package systems.conduit.launcher.pack;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.io.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class ClassLoadOrder {
+
+    public static final Path PATH = Constants.PACK_PATH.resolve("load-order.txt");
+
+    private static final Set<String> names = new LinkedHashSet<>();
+    private static volatile boolean recording;
+
+    public static synchronized void startRecording() {
+        if (recording) return;
+        recording = true;
+        // Written when the server stops, so the order covers the whole run with the boot at the front
+        Runtime.getRuntime().addShutdownHook(new Thread(ClassLoadOrder::write, "Launcher-Load-Order"));
+    }
+
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    public static void record(String name) {
+        if (!recording) return;
+        // Asked for as either a class name or a path, always kept as an internal name
+        String path = name.endsWith(".class") ? name.substring(0, name.length() - 6) : name.replace('.', '/');
+        synchronized (names) {
+            names.add(path);
+        }
+    }
+
+    public static List<String> read() throws IOException {
+        if (!Files.isRegularFile(PATH)) return Collections.emptyList();
+        return Files.readAllLines(PATH, StandardCharsets.UTF_8);
+    }
+
+    private static void write() {
+        List<String> order;
+        synchronized (names) {
+            order = new ArrayList<>(names);
+        }
+        if (order.isEmpty()) return;
+        try {
+            AtomicFiles.writeText(PATH, writer -> {
+                for (String name : order) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            });
+        } catch (IOException e) {
+            // Logging may already be shut down at this point
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package systems.conduit.launcher.pack;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.io.AtomicFiles;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.jar.MappedJar;
+import systems.conduit.launcher.json.cache.JsonPackEntry;
+import systems.conduit.launcher.json.cache.JsonPackIndex;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+public class JarPacker {
+
+    // Bump when the packed layout changes so old jars are packed again
+    public static final String VERSION = "1";
+
+    public static final Path PACKED_PATH = Constants.PACK_PATH.resolve("server.jar");
+    private static final Path INDEX_PATH = Constants.PACK_PATH.resolve("index.json");
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    public static JsonPackIndex pack(Path source) throws IOException {
+        // Nothing to order by until a train run recorded which classes the server loads
+        List<String> order = ClassLoadOrder.read();
+        if (order.isEmpty()) return null;
+        File file = source.toFile();
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        digest.update((file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified() + "\n").getBytes(StandardCharsets.UTF_8));
+        for (String name : order) {
+            digest.update((name + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((Constants.PACK_STORE_HOT + ":" + Constants.PACK_STRIP_DEBUG + ":" + VERSION).getBytes(StandardCharsets.UTF_8));
+        String key = Checksum.toHex(digest.digest());
+        JsonPackIndex cached = readIndex();
+        if (cached != null && key.equals(cached.getKey()) && PACKED_PATH.toFile().isFile()) return cached;
+        JsonPackIndex index = write(JarFiles.map(file), order, key, source.toString());
+        writeIndex(index);
+        return index;
+    }
+
+    private static JsonPackIndex write(MappedJar jar, List<String> order, String key, String source) throws IOException {
+        // Classes in the order the server asked for them, then everything else as it was
+        List<MappedJar.Entry> entries = new ArrayList<>();
+        Set<String> added = new HashSet<>();
+        for (String name : order) {
+            MappedJar.Entry entry = jar.getEntry(name + ".class");
+            if (entry != null && added.add(entry.getName())) entries.add(entry);
+        }
+        int hot = entries.size();
+        for (MappedJar.Entry entry : jar.getEntries()) {
+            if (entry.isDirectory() || isSignature(entry.getName()) || entry.getName().equals(MANIFEST)) continue;
+            if (added.add(entry.getName())) entries.add(entry);
+        }
+        List<JsonPackEntry> packed = new ArrayList<>();
+        AtomicFiles.write(PACKED_PATH, outputStream -> {
+            JarOutputStream jarOutputStream = new JarOutputStream(outputStream);
+            byte[] manifest = jar.readBytes(MANIFEST);
+            if (manifest != null) {
+                // Per entry digests no longer match anything once classes change, only the main section is kept
+                Manifest main = new Manifest(new ByteArrayInputStream(manifest));
+                main.getEntries().clear();
+                ByteArrayOutputStream manifestOutputStream = new ByteArrayOutputStream();
+                main.write(manifestOutputStream);
+                write(jarOutputStream, MANIFEST, manifestOutputStream.toByteArray(), false);
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                MappedJar.Entry entry = entries.get(i);
+                byte[] bytes = jar.readBytes(entry);
+                if (Constants.PACK_STRIP_DEBUG && entry.getName().endsWith(".class")) bytes = stripDebug(bytes);
+                // Hot classes are stored so the class loader can read them without inflating
+                boolean stored = Constants.PACK_STORE_HOT && i < hot;
+                write(jarOutputStream, entry.getName(), bytes, stored);
+                packed.add(new JsonPackEntry(entry.getName(), bytes.length, stored));
+            }
+            jarOutputStream.finish();
+        });
+        return new JsonPackIndex(key, source, hot, Constants.PACK_STORE_HOT, Constants.PACK_STRIP_DEBUG, packed);
+    }
+
+    private static boolean isSignature(String name) {
+        if (!name.startsWith("META-INF/") || name.indexOf('/', 9) != -1) return false;
+        return name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC");
+    }
+
+    private static byte[] stripDebug(byte[] bytes) {
+        // Source files, line numbers and local variable names
+        ClassReader reader = new ClassReader(bytes);
+        ClassWriter writer = new ClassWriter(0);
+        reader.accept(writer, ClassReader.SKIP_DEBUG);
+        return writer.toByteArray();
+    }
+
+    private static void write(JarOutputStream jarOutputStream, String name, byte[] bytes, boolean stored) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
+        }
+        jarOutputStream.putNextEntry(entry);
+        jarOutputStream.write(bytes);
+        jarOutputStream.closeEntry();
+    }
+
+    private static JsonPackIndex readIndex() {
+        return JsonFiles.read(INDEX_PATH, JsonPackIndex.class);
+    }
+
+    private static void writeIndex(JsonPackIndex index) throws IOException {
+        JsonFiles.write(INDEX_PATH, index);
+    }
+}
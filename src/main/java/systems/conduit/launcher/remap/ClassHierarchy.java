@@ -0,0 +1,40 @@
+package systems.conduit.launcher.remap;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ClassHierarchy {
+
+    private final Map<String, String[]> parents = new HashMap<>();
+    private final Map<String, Set<String>> ancestors = new ConcurrentHashMap<>();
+
+    public void add(String name, String superName, String[] interfaces) {
+        String[] classParents = new String[(superName != null ? 1 : 0) + (interfaces != null ? interfaces.length : 0)];
+        int i = 0;
+        if (superName != null) classParents[i++] = superName;
+        if (interfaces != null) {
+            for (String anInterface : interfaces) {
+                classParents[i++] = anInterface;
+            }
+        }
+        parents.put(name, classParents);
+    }
+
+    public String[] getParents(String name) {
+        String[] classParents = parents.get(name);
+        return classParents != null ? classParents : new String[0];
+    }
+
+    public Set<String> getAncestors(String name) {
+        return ancestors.computeIfAbsent(name, key -> {
+            // Only classes inside the jar are known, everything else is a library or the JDK
+            Set<String> classAncestors = new LinkedHashSet<>();
+            Deque<String> queue = new ArrayDeque<>(Arrays.asList(getParents(key)));
+            while (!queue.isEmpty()) {
+                String parent = queue.poll();
+                if (classAncestors.add(parent)) queue.addAll(Arrays.asList(getParents(parent)));
+            }
+            return Collections.unmodifiableSet(classAncestors);
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package systems.conduit.launcher.remap;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ClassReferences {
+
+    // Every name in the constant pool that could be a class, including the ones inside descriptors
+    public static Set<String> collect(byte[] classBytes) throws IOException {
+        Set<String> names = new HashSet<>();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(classBytes));
+        if (input.readInt() != 0xCAFEBABE) throw new IOException("Not a class file");
+        input.readUnsignedShort();
+        input.readUnsignedShort();
+        int count = input.readUnsignedShort();
+        for (int i = 1; i < count; i++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    addNames(names, input.readUTF());
+                    break;
+                case 7: case 8: case 16: case 19: case 20:
+                    input.skipBytes(2);
+                    break;
+                case 15:
+                    input.skipBytes(3);
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    input.skipBytes(4);
+                    break;
+                case 5: case 6:
+                    // Longs and doubles take up two slots
+                    input.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        return names;
+    }
+
+    private static void addNames(Set<String> names, String value) {
+        names.add(value);
+        int start = value.indexOf('L');
+        while (start != -1) {
+            int end = value.indexOf(';', start);
+            if (end == -1) break;
+            names.add(value.substring(start + 1, end));
+            start = value.indexOf('L', start + 1);
+        }
+    }
+}
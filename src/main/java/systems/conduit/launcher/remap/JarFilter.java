@@ -0,0 +1,25 @@
+package systems.conduit.launcher.remap;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+public class JarFilter implements Predicate<String> {
+
+    private final String[] excluded;
+
+    public JarFilter(List<String> packages) {
+        excluded = new String[packages.size()];
+        for (int i = 0; i < packages.size(); i++) {
+            String prefix = packages.get(i).replace('.', '/');
+            excluded[i] = prefix.endsWith("/") ? prefix : prefix + "/";
+        }
+    }
+
+    @Override
+    public boolean test(String entryName) {
+        for (String prefix : excluded) {
+            if (entryName.startsWith(prefix)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package systems.conduit.launcher.remap;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.io.AtomicFiles;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.jar.MappedJar;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class JarRemapper {
+
+    // Bump when the remapping output changes so old cache entries are ignored
+    public static final String VERSION = "2";
+    // Remap tasks allowed ahead of the writer for every thread
+    private static final int IN_FLIGHT = 4;
+
+    private final Mappings mappings;
+    private final RemapCache cache;
+    private final int threads;
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger cacheMisses = new AtomicInteger();
+
+    public JarRemapper(Mappings mappings, RemapCache cache, int threads) {
+        this.mappings = mappings;
+        this.cache = cache;
+        this.threads = Math.max(1, threads);
+    }
+
+    public void remap(File input, File output) throws IOException {
+        remap(input, output, name -> true);
+    }
+
+    public void remap(File input, File output, Predicate<String> filter) throws IOException {
+        // Remapping needs to know the whole class hierarchy before any class is written
+        MappedJar jar = JarFiles.map(input);
+        List<MappedJar.Entry> entries = new ArrayList<>();
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        Map<String, String> classNames = new HashMap<>();
+        for (MappedJar.Entry entry : jar.getEntries()) {
+            // Filtered entries are never even read
+            if (entry.isDirectory() || !filter.test(entry.getName())) continue;
+            entries.add(entry);
+            if (!entry.getName().endsWith(".class")) continue;
+            // Only the hierarchy is kept, the bytes are read again by the remap task
+            ClassReader reader = new ClassReader(jar.readBytes(entry));
+            hierarchy.add(reader.getClassName(), reader.getSuperName(), reader.getInterfaces());
+            classNames.put(entry.getName(), reader.getClassName());
+        }
+        MappingRemapper remapper = new MappingRemapper(mappings, hierarchy);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            AtomicFiles.write(output.toPath(), outputStream -> {
+                JarOutputStream jarOutputStream = new JarOutputStream(outputStream);
+                // Only a few classes per thread are in flight ahead of the writer, so the heap never holds the whole jar
+                Deque<ForkJoinTask<byte[]>> tasks = new ArrayDeque<>();
+                Iterator<MappedJar.Entry> pending = entries.iterator();
+                for (MappedJar.Entry entry : entries) {
+                    String className = classNames.get(entry.getName());
+                    if (className == null) {
+                        // Resources are copied as they are
+                        write(jarOutputStream, entry.getName(), jar.read(entry));
+                        continue;
+                    }
+                    while (tasks.size() < threads * IN_FLIGHT && pending.hasNext()) {
+                        MappedJar.Entry next = pending.next();
+                        String nextName = classNames.get(next.getName());
+                        if (nextName == null) continue;
+                        tasks.add(pool.submit(() -> remapClass(nextName, jar.readBytes(next), hierarchy, remapper)));
+                    }
+                    byte[] remapped;
+                    try {
+                        // Tasks finish in any order but are taken in jar order, the head is always this entry
+                        remapped = tasks.poll().get();
+                    } catch (ExecutionException e) {
+                        throw new IOException("Error remapping " + entry.getName(), e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while remapping " + entry.getName());
+                    }
+                    write(jarOutputStream, remapper.map(className) + ".class", remapped);
+                }
+                jarOutputStream.finish();
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    private byte[] remapClass(String className, byte[] bytes, ClassHierarchy hierarchy, MappingRemapper remapper) throws IOException {
+        if (cache == null) return remapClass(bytes, remapper);
+        String key = getCacheKey(className, bytes, hierarchy);
+        byte[] remapped = cache.get(key);
+        if (remapped != null) {
+            cacheHits.incrementAndGet();
+            return remapped;
+        }
+        cacheMisses.incrementAndGet();
+        remapped = remapClass(bytes, remapper);
+        cache.put(key, remapped);
+        return remapped;
+    }
+
+    private static byte[] remapClass(byte[] bytes, MappingRemapper remapper) {
+        ClassReader reader = new ClassReader(bytes);
+        ClassWriter writer = new ClassWriter(0);
+        reader.accept(new LambdaClassRemapper(writer, remapper), 0);
+        return writer.toByteArray();
+    }
+
+    private String getCacheKey(String className, byte[] bytes, ClassHierarchy hierarchy) throws IOException {
+        // A class only changes when its bytes or the mappings of something it can see change
+        Set<String> relevant = new TreeSet<>();
+        relevant.add(className);
+        for (String name : ClassReferences.collect(bytes)) {
+            if (mappings.hasClass(name)) relevant.add(name);
+        }
+        for (String name : new ArrayList<>(relevant)) {
+            relevant.addAll(hierarchy.getAncestors(name));
+        }
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update(bytes);
+        for (String name : relevant) {
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            if (mappings.hasClass(name)) digest.update(mappings.getClassHash(name));
+            // Where a class sits in the hierarchy decides which mapping an inherited member uses
+            for (String parent : hierarchy.getParents(name)) {
+                digest.update(parent.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return Checksum.toHex(digest.digest());
+    }
+
+    private static void write(JarOutputStream jarOutputStream, String name, byte[] bytes) throws IOException {
+        jarOutputStream.putNextEntry(new ZipEntry(name));
+        jarOutputStream.write(bytes);
+        jarOutputStream.closeEntry();
+    }
+
+    private static void write(JarOutputStream jarOutputStream, String name, ByteBuffer buffer) throws IOException {
+        jarOutputStream.putNextEntry(new ZipEntry(name));
+        if (buffer.hasArray()) {
+            jarOutputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            // Stored resources come straight from the mapping, copy them through a small buffer
+            byte[] chunk = new byte[Math.min(8192, buffer.remaining())];
+            while (buffer.hasRemaining()) {
+                int length = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, length);
+                jarOutputStream.write(chunk, 0, length);
+            }
+        }
+        jarOutputStream.closeEntry();
+    }
+}
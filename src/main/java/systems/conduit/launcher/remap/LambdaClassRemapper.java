@@ -0,0 +1,40 @@
+package systems.conduit.launcher.remap;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.MethodRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+public class LambdaClassRemapper extends ClassRemapper {
+
+    private static final String LAMBDA_METAFACTORY = "java/lang/invoke/LambdaMetafactory";
+
+    public LambdaClassRemapper(ClassVisitor classVisitor, Remapper remapper) {
+        super(Opcodes.ASM7, classVisitor, remapper);
+    }
+
+    @Override
+    protected MethodVisitor createMethodRemapper(MethodVisitor methodVisitor) {
+        return new MethodRemapper(Opcodes.ASM7, methodVisitor, remapper) {
+            @Override
+            public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+                // A lambda's name is the interface method it implements, which the plain remapper can't see
+                if (LAMBDA_METAFACTORY.equals(bootstrapMethodHandle.getOwner()) && bootstrapMethodArguments.length > 0 && bootstrapMethodArguments[0] instanceof Type) {
+                    String owner = Type.getReturnType(descriptor).getInternalName();
+                    String mapped = remapper.mapMethodName(owner, name, ((Type) bootstrapMethodArguments[0]).getDescriptor());
+                    Object[] remappedArguments = new Object[bootstrapMethodArguments.length];
+                    for (int i = 0; i < bootstrapMethodArguments.length; i++) {
+                        remappedArguments[i] = remapper.mapValue(bootstrapMethodArguments[i]);
+                    }
+                    mv.visitInvokeDynamicInsn(mapped, remapper.mapMethodDesc(descriptor), (Handle) remapper.mapValue(bootstrapMethodHandle), remappedArguments);
+                    return;
+                }
+                super.visitInvokeDynamicInsn(name, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+            }
+        };
+    }
+}
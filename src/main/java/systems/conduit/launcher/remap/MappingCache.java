@@ -0,0 +1,39 @@
+package systems.conduit.launcher.remap;
+
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.io.AtomicFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class MappingCache {
+
+    private final Path directory;
+
+    public MappingCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public Mappings load(Checksum checksum) {
+        if (checksum == null) return null;
+        File file = getPath(checksum).toFile();
+        if (!file.isFile()) return null;
+        try {
+            return Mappings.read(file);
+        } catch (IOException | RuntimeException e) {
+            // A broken cache is just a miss
+            file.delete();
+            return null;
+        }
+    }
+
+    public void save(Checksum checksum, Mappings mappings) throws IOException {
+        if (checksum == null) return;
+        AtomicFiles.write(getPath(checksum), mappings::write);
+    }
+
+    private Path getPath(Checksum checksum) {
+        return directory.resolve(checksum.getValue() + ".bin");
+    }
+}
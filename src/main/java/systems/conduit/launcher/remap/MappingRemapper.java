@@ -0,0 +1,45 @@
+package systems.conduit.launcher.remap;
+
+import org.objectweb.asm.commons.Remapper;
+
+public class MappingRemapper extends Remapper {
+
+    private final Mappings mappings;
+    private final ClassHierarchy hierarchy;
+
+    public MappingRemapper(Mappings mappings, ClassHierarchy hierarchy) {
+        this.mappings = mappings;
+        this.hierarchy = hierarchy;
+    }
+
+    @Override
+    public String map(String internalName) {
+        String named = mappings.getClass(internalName);
+        return named != null ? named : internalName;
+    }
+
+    @Override
+    public String mapFieldName(String owner, String name, String descriptor) {
+        String named = mappings.getField(owner, name, descriptor);
+        if (named != null) return named;
+        // Fields can be referenced through a subclass
+        for (String parent : hierarchy.getAncestors(owner)) {
+            named = mappings.getField(parent, name, descriptor);
+            if (named != null) return named;
+        }
+        return name;
+    }
+
+    @Override
+    public String mapMethodName(String owner, String name, String descriptor) {
+        if (name.startsWith("<")) return name;
+        String named = mappings.getMethod(owner, name, descriptor);
+        if (named != null) return named;
+        // Inherited and overridden methods are only mapped on the class that declares them
+        for (String parent : hierarchy.getAncestors(owner)) {
+            named = mappings.getMethod(parent, name, descriptor);
+            if (named != null) return named;
+        }
+        return name;
+    }
+}
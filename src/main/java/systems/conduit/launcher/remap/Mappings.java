@@ -0,0 +1,372 @@
+package systems.conduit.launcher.remap;
+
+import systems.conduit.launcher.download.Checksum;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Mappings {
+
+    private static final int MAGIC = 0x434D4150;
+    private static final int FORMAT = 2;
+    private static final int DIGEST_LENGTH = 20;
+    // Magic, format, payload length and the SHA-1 of the payload
+    private static final int HEADER_LENGTH = 12 + DIGEST_LENGTH;
+
+    // Every name lives once in the pool, the tables below only hold pool ids
+    private final StringPool pool;
+    // Per class: obfuscated name, named name, and where its fields and methods start
+    private final int[] classObfuscated;
+    private final int[] classNamed;
+    private final int[] fieldStart;
+    private final int[] methodStart;
+    private final int[] fieldObfuscated;
+    private final int[] fieldDescriptor;
+    private final int[] fieldNamed;
+    private final int[] methodObfuscated;
+    private final int[] methodDescriptor;
+    private final int[] methodNamed;
+    // Pool id of an obfuscated class name to its class index
+    private final int[] classByName;
+    private final Map<String, byte[]> classHashes = new ConcurrentHashMap<>();
+
+    private Mappings(StringPool pool, int[] classObfuscated, int[] classNamed, int[] fieldStart, int[] methodStart,
+                     int[] fieldObfuscated, int[] fieldDescriptor, int[] fieldNamed,
+                     int[] methodObfuscated, int[] methodDescriptor, int[] methodNamed) {
+        this.pool = pool;
+        this.classObfuscated = classObfuscated;
+        this.classNamed = classNamed;
+        this.fieldStart = fieldStart;
+        this.methodStart = methodStart;
+        this.fieldObfuscated = fieldObfuscated;
+        this.fieldDescriptor = fieldDescriptor;
+        this.fieldNamed = fieldNamed;
+        this.methodObfuscated = methodObfuscated;
+        this.methodDescriptor = methodDescriptor;
+        this.methodNamed = methodNamed;
+        this.classByName = new int[pool.size()];
+        Arrays.fill(classByName, -1);
+        for (int i = 0; i < classObfuscated.length; i++) {
+            classByName[classObfuscated[i]] = i;
+        }
+    }
+
+    public boolean hasClass(String obfuscated) {
+        return findClass(obfuscated) != -1;
+    }
+
+    public String getClass(String obfuscated) {
+        int index = findClass(obfuscated);
+        return index != -1 ? pool.get(classNamed[index]) : null;
+    }
+
+    public String getField(String owner, String obfuscated, String descriptor) {
+        int index = findClass(owner);
+        int name = pool.find(obfuscated);
+        int type = pool.find(descriptor);
+        if (index == -1 || name == -1 || type == -1) return null;
+        for (int i = fieldStart[index]; i < fieldStart[index + 1]; i++) {
+            if (fieldObfuscated[i] == name && fieldDescriptor[i] == type) return pool.get(fieldNamed[i]);
+        }
+        return null;
+    }
+
+    public String getMethod(String owner, String obfuscated, String descriptor) {
+        int index = findClass(owner);
+        int name = pool.find(obfuscated);
+        int type = pool.find(descriptor);
+        if (index == -1 || name == -1 || type == -1) return null;
+        for (int i = methodStart[index]; i < methodStart[index + 1]; i++) {
+            if (methodObfuscated[i] == name && methodDescriptor[i] == type) return pool.get(methodNamed[i]);
+        }
+        return null;
+    }
+
+    public byte[] getClassHash(String obfuscated) {
+        // Hash of everything the mappings say about one class, used to key the remap cache
+        return classHashes.computeIfAbsent(obfuscated, name -> {
+            MessageDigest digest = Checksum.createDigest("SHA-1");
+            int index = findClass(name);
+            digest.update((name + " " + pool.get(classNamed[index]) + "\n").getBytes(StandardCharsets.UTF_8));
+            for (int i = fieldStart[index]; i < fieldStart[index + 1]; i++) {
+                digest.update(("\t" + pool.get(fieldObfuscated[i]) + " " + pool.get(fieldDescriptor[i]) + " " + pool.get(fieldNamed[i]) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            for (int i = methodStart[index]; i < methodStart[index + 1]; i++) {
+                digest.update(("\t" + pool.get(methodObfuscated[i]) + pool.get(methodDescriptor[i]) + " " + pool.get(methodNamed[i]) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return digest.digest();
+        });
+    }
+
+    public int getClassCount() {
+        return classObfuscated.length;
+    }
+
+    private int findClass(String obfuscated) {
+        int id = pool.find(obfuscated);
+        return id != -1 ? classByName[id] : -1;
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeInt(pool.size());
+        for (int i = 0; i < pool.size(); i++) {
+            data.writeUTF(pool.get(i));
+        }
+        writeInts(data, classObfuscated, classNamed, fieldStart, methodStart);
+        writeInts(data, fieldObfuscated, fieldDescriptor, fieldNamed);
+        writeInts(data, methodObfuscated, methodDescriptor, methodNamed);
+        data.flush();
+        byte[] bytes = payload.toByteArray();
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT);
+        output.writeInt(bytes.length);
+        output.write(Checksum.createDigest("SHA-1").digest(bytes));
+        output.write(bytes);
+        output.flush();
+    }
+
+    public static Mappings read(File file) throws IOException {
+        byte[] bytes;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT) throw new IOException("Unsupported mappings cache: " + file);
+            int length = input.readInt();
+            byte[] sha1 = new byte[DIGEST_LENGTH];
+            input.readFully(sha1);
+            // Checked against the file before anything is allocated from it
+            check(length == file.length() - HEADER_LENGTH, file, "payload length");
+            bytes = new byte[length];
+            input.readFully(bytes);
+            check(MessageDigest.isEqual(sha1, Checksum.createDigest("SHA-1").digest(bytes)), file, "checksum");
+        } catch (EOFException e) {
+            throw new IOException("Corrupt mappings cache (truncated): " + file, e);
+        }
+        // A matching digest only rules out damage, the tables still have to make sense before they are used as indices
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        StringPool pool = new StringPool();
+        int strings = input.readInt();
+        check(strings >= 0 && strings <= input.available() / 2, file, "string count");
+        for (int i = 0; i < strings; i++) {
+            pool.intern(input.readUTF());
+        }
+        check(pool.size() == strings, file, "duplicate strings");
+        int[][] classes = readInts(input, 4, file);
+        int[][] fields = readInts(input, 3, file);
+        int[][] methods = readInts(input, 3, file);
+        check(input.available() == 0, file, "trailing data");
+        int classCount = classes[0].length;
+        check(classes[1].length == classCount && classes[2].length == classCount + 1 && classes[3].length == classCount + 1, file, "class table");
+        check(fields[1].length == fields[0].length && fields[2].length == fields[0].length, file, "field table");
+        check(methods[1].length == methods[0].length && methods[2].length == methods[0].length, file, "method table");
+        checkStarts(classes[2], fields[0].length, file);
+        checkStarts(classes[3], methods[0].length, file);
+        for (int[][] table : new int[][][] {{classes[0], classes[1]}, fields, methods}) {
+            for (int[] ids : table) {
+                for (int id : ids) {
+                    check(id >= 0 && id < strings, file, "string id");
+                }
+            }
+        }
+        return new Mappings(pool, classes[0], classes[1], classes[2], classes[3],
+                fields[0], fields[1], fields[2], methods[0], methods[1], methods[2]);
+    }
+
+    private static void checkStarts(int[] starts, int count, File file) throws IOException {
+        // Each class owns the members from its start up to the next class's start
+        check(starts[0] == 0 && starts[starts.length - 1] == count, file, "member range");
+        for (int i = 1; i < starts.length; i++) {
+            check(starts[i] >= starts[i - 1], file, "member range");
+        }
+    }
+
+    private static void check(boolean valid, File file, String what) throws IOException {
+        if (!valid) throw new IOException("Corrupt mappings cache (" + what + "): " + file);
+    }
+
+    private static void writeInts(DataOutputStream output, int[]... arrays) throws IOException {
+        for (int[] array : arrays) {
+            output.writeInt(array.length);
+            for (int value : array) {
+                output.writeInt(value);
+            }
+        }
+    }
+
+    private static int[][] readInts(DataInputStream input, int count, File file) throws IOException {
+        int[][] arrays = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int length = input.readInt();
+            check(length >= 0 && length <= input.available() / 4, file, "table length");
+            arrays[i] = new int[length];
+            for (int j = 0; j < length; j++) {
+                arrays[i][j] = input.readInt();
+            }
+        }
+        return arrays;
+    }
+
+    public static Mappings readProGuard(File file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return readProGuard(reader);
+        }
+    }
+
+    public static Mappings readProGuard(BufferedReader reader) throws IOException {
+        // One pass over the text, descriptors are kept in named form until every class is known
+        StringPool pool = new StringPool();
+        IntList classObfuscated = new IntList(), classNamed = new IntList(), fieldStart = new IntList(), methodStart = new IntList();
+        IntList fieldObfuscated = new IntList(), fieldDescriptor = new IntList(), fieldNamed = new IntList();
+        IntList methodObfuscated = new IntList(), methodDescriptor = new IntList(), methodNamed = new IntList();
+        StringBuilder descriptor = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty() || line.trim().startsWith("#")) continue;
+            int arrow = line.indexOf(" -> ");
+            if (arrow == -1) throw new IOException("Invalid mapping: " + line);
+            String named = line.substring(0, arrow).trim();
+            String obfuscated = line.substring(arrow + 4).trim();
+            if (!Character.isWhitespace(line.charAt(0))) {
+                // Class: named -> obfuscated:
+                if (!obfuscated.endsWith(":")) throw new IOException("Invalid class mapping: " + line);
+                classObfuscated.add(pool.intern(obfuscated.substring(0, obfuscated.length() - 1).replace('.', '/')));
+                classNamed.add(pool.intern(named.replace('.', '/')));
+                fieldStart.add(fieldObfuscated.size());
+                methodStart.add(methodObfuscated.size());
+                continue;
+            }
+            if (classObfuscated.size() == 0) throw new IOException("Member mapping without a class: " + line);
+            descriptor.setLength(0);
+            int open = named.indexOf('(');
+            if (open == -1) {
+                // Field: type name -> obfuscated
+                int space = named.indexOf(' ');
+                if (space == -1) throw new IOException("Invalid field mapping: " + line);
+                appendDescriptor(descriptor, named.substring(0, space));
+                fieldObfuscated.add(pool.intern(obfuscated));
+                fieldDescriptor.add(pool.intern(descriptor.toString()));
+                fieldNamed.add(pool.intern(named.substring(space + 1)));
+                continue;
+            }
+            // Method: [line:line:]returnType name(arguments)[:line:line] -> obfuscated
+            int close = named.indexOf(')', open);
+            int space = named.lastIndexOf(' ', open);
+            if (close == -1 || space == -1) throw new IOException("Invalid method mapping: " + line);
+            String name = named.substring(space + 1, open);
+            if (name.startsWith("<")) continue;
+            descriptor.append('(');
+            int argument = open + 1;
+            while (argument < close) {
+                int end = named.indexOf(',', argument);
+                if (end == -1 || end > close) end = close;
+                appendDescriptor(descriptor, named.substring(argument, end));
+                argument = end + 1;
+            }
+            descriptor.append(')');
+            appendDescriptor(descriptor, named.substring(named.lastIndexOf(':', space) + 1, space));
+            methodObfuscated.add(pool.intern(obfuscated));
+            methodDescriptor.add(pool.intern(descriptor.toString()));
+            methodNamed.add(pool.intern(name));
+        }
+        fieldStart.add(fieldObfuscated.size());
+        methodStart.add(methodObfuscated.size());
+        // Swap named descriptors for obfuscated ones, then drop everything nothing points at anymore
+        Map<String, String> namedToObfuscated = new HashMap<>();
+        for (int i = 0; i < classObfuscated.size(); i++) {
+            namedToObfuscated.put(pool.get(classNamed.get(i)), pool.get(classObfuscated.get(i)));
+        }
+        Map<Integer, Integer> obfuscatedDescriptors = new HashMap<>();
+        for (IntList descriptors : Arrays.asList(fieldDescriptor, methodDescriptor)) {
+            for (int i = 0; i < descriptors.size(); i++) {
+                descriptors.set(i, obfuscatedDescriptors.computeIfAbsent(descriptors.get(i), id -> pool.intern(obfuscateDescriptor(pool.get(id), namedToObfuscated))));
+            }
+        }
+        StringPool compact = new StringPool();
+        int[] remapped = new int[pool.size()];
+        Arrays.fill(remapped, -1);
+        IntList[] ids = {classObfuscated, classNamed, fieldObfuscated, fieldDescriptor, fieldNamed, methodObfuscated, methodDescriptor, methodNamed};
+        for (IntList list : ids) {
+            for (int i = 0; i < list.size(); i++) {
+                int id = list.get(i);
+                if (remapped[id] == -1) remapped[id] = compact.intern(pool.get(id));
+                list.set(i, remapped[id]);
+            }
+        }
+        return new Mappings(compact, classObfuscated.toArray(), classNamed.toArray(), fieldStart.toArray(), methodStart.toArray(),
+                fieldObfuscated.toArray(), fieldDescriptor.toArray(), fieldNamed.toArray(),
+                methodObfuscated.toArray(), methodDescriptor.toArray(), methodNamed.toArray());
+    }
+
+    private static void appendDescriptor(StringBuilder descriptor, String type) {
+        int end = type.length();
+        while (end >= 2 && type.charAt(end - 1) == ']') {
+            descriptor.append('[');
+            end -= 2;
+        }
+        type = type.substring(0, end);
+        switch (type) {
+            case "boolean": descriptor.append('Z'); break;
+            case "byte": descriptor.append('B'); break;
+            case "char": descriptor.append('C'); break;
+            case "short": descriptor.append('S'); break;
+            case "int": descriptor.append('I'); break;
+            case "long": descriptor.append('J'); break;
+            case "float": descriptor.append('F'); break;
+            case "double": descriptor.append('D'); break;
+            case "void": descriptor.append('V'); break;
+            default: descriptor.append('L').append(type.replace('.', '/')).append(';');
+        }
+    }
+
+    private static String obfuscateDescriptor(String descriptor, Map<String, String> namedToObfuscated) {
+        StringBuilder builder = new StringBuilder(descriptor.length());
+        int i = 0;
+        while (i < descriptor.length()) {
+            char c = descriptor.charAt(i);
+            if (c != 'L') {
+                builder.append(c);
+                i++;
+                continue;
+            }
+            int end = descriptor.indexOf(';', i);
+            String name = descriptor.substring(i + 1, end);
+            builder.append('L').append(namedToObfuscated.getOrDefault(name, name)).append(';');
+            i = end + 1;
+        }
+        return builder.toString();
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        private int get(int index) {
+            return values[index];
+        }
+
+        private void set(int index, int value) {
+            values[index] = value;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package systems.conduit.launcher.remap;
+
+import systems.conduit.launcher.io.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class RemapCache {
+
+    private final Path directory;
+
+    public RemapCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public byte[] get(String key) {
+        Path path = getPath(key);
+        try {
+            return Files.isRegularFile(path) ? Files.readAllBytes(path) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void put(String key, byte[] bytes) throws IOException {
+        // Remap threads share the cache, so a reader must never see half a class
+        AtomicFiles.write(getPath(key), outputStream -> outputStream.write(bytes));
+    }
+
+    private Path getPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2));
+    }
+}
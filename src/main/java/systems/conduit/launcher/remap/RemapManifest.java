@@ -0,0 +1,129 @@
+package systems.conduit.launcher.remap;
+
+import org.apache.logging.log4j.LogManager;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.jar.MappedJar;
+import systems.conduit.launcher.json.cache.JsonHashedFile;
+import systems.conduit.launcher.json.cache.JsonRemapEntry;
+import systems.conduit.launcher.json.cache.JsonRemapManifest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+public class RemapManifest {
+
+    public enum Status {
+        VALID, MISSING, CHANGED, CORRUPT
+    }
+
+    public static Path getPath(Path jar) {
+        return jar.resolveSibling(jar.getFileName() + ".json");
+    }
+
+    public static Status check(Path jar, String server, String mappings, List<String> excludedPackages, boolean full) {
+        JsonRemapManifest manifest = read(jar);
+        if (manifest == null) return Status.MISSING;
+        // Remapped from another server or mappings, or by an older remapper
+        if (!Objects.equals(server, manifest.getServer()) || !Objects.equals(mappings, manifest.getMappings())) return Status.CHANGED;
+        if (!excludedPackages.equals(manifest.getExcludedPackages()) || !JarRemapper.VERSION.equals(manifest.getRemapper())) return Status.CHANGED;
+        return verify(jar, manifest, full);
+    }
+
+    public static Status verify(Path jar, boolean full) {
+        JsonRemapManifest manifest = read(jar);
+        if (manifest == null) return Status.MISSING;
+        return verify(jar, manifest, full);
+    }
+
+    public static JsonRemapManifest write(Path jar, String server, String mappings, List<String> excludedPackages) throws IOException {
+        File file = jar.toFile();
+        List<JsonRemapEntry> entries = readEntries(jar);
+        JsonHashedFile hashedFile = new JsonHashedFile(jar.toString(), file.length(), file.lastModified(), FileDownloader.hash(file, "SHA-1").getValue());
+        JsonRemapManifest manifest = new JsonRemapManifest(server, mappings, excludedPackages, JarRemapper.VERSION, hashedFile, entries);
+        save(jar, manifest);
+        return manifest;
+    }
+
+    public static List<JsonRemapEntry> readEntries(Path jar) throws IOException {
+        File file = jar.toFile();
+        MappedJar mappedJar = JarFiles.map(file);
+        List<JsonRemapEntry> entries = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        for (MappedJar.Entry entry : mappedJar.getEntries()) {
+            if (entry.isDirectory()) continue;
+            // Every entry is read back once, so a broken jar never gets a manifest
+            crc.reset();
+            crc.update(mappedJar.readBytes(entry));
+            if (crc.getValue() != entry.getCrc()) throw new ZipException("Checksum mismatch for " + entry.getName() + " in " + file);
+            entries.add(new JsonRemapEntry(entry.getName(), entry.getSize(), entry.getCrc()));
+        }
+        return entries;
+    }
+
+    public static void delete(Path jar) {
+        jar.toFile().delete();
+        getPath(jar).toFile().delete();
+    }
+
+    private static Status verify(Path jar, JsonRemapManifest manifest, boolean full) {
+        File file = jar.toFile();
+        JsonHashedFile recorded = manifest.getJar();
+        if (!file.isFile()) return Status.MISSING;
+        if (recorded == null || recorded.getSize() != file.length()) return Status.CORRUPT;
+        // Untouched since the manifest was written, nothing needs reading
+        if (!full && recorded.isUpToDate(file.length(), file.lastModified())) return Status.VALID;
+        String sha1;
+        try {
+            sha1 = FileDownloader.hash(file, "SHA-1").getValue();
+        } catch (IOException e) {
+            return Status.CORRUPT;
+        }
+        if (!sha1.equals(recorded.getSha1())) {
+            LogManager.getLogger(Constants.LOGGER_NAME).warn("Remapped jar " + jar + " does not match its manifest: " + findDamage(jar, manifest.getEntries()));
+            return Status.CORRUPT;
+        }
+        if (!recorded.isUpToDate(file.length(), file.lastModified())) {
+            // Same bytes with a new modified time, remember it so the next start takes the fast path again
+            JsonHashedFile hashedFile = new JsonHashedFile(recorded.getPath(), file.length(), file.lastModified(), sha1);
+            try {
+                save(jar, new JsonRemapManifest(manifest.getServer(), manifest.getMappings(), manifest.getExcludedPackages(), manifest.getRemapper(), hashedFile, manifest.getEntries()));
+            } catch (IOException ignored) {
+            }
+        }
+        return Status.VALID;
+    }
+
+    static String findDamage(Path jar, List<JsonRemapEntry> recorded) {
+        // Only worked out once the jar is known to be broken, the stored entries say where
+        List<JsonRemapEntry> entries;
+        try {
+            entries = readEntries(jar);
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+        Map<String, JsonRemapEntry> remaining = new HashMap<>();
+        recorded.forEach(entry -> remaining.put(entry.getName(), entry));
+        for (JsonRemapEntry entry : entries) {
+            JsonRemapEntry expected = remaining.remove(entry.getName());
+            if (expected == null) return "unexpected entry " + entry.getName();
+            if (expected.getSize() != entry.getSize() || expected.getCrc() != entry.getCrc()) return "changed entry " + entry.getName();
+        }
+        if (!remaining.isEmpty()) return "missing entry " + remaining.keySet().iterator().next();
+        return "every entry intact, only the jar around them changed";
+    }
+
+    private static JsonRemapManifest read(Path jar) {
+        return JsonFiles.read(getPath(jar), JsonRemapManifest.class);
+    }
+
+    private static void save(Path jar, JsonRemapManifest manifest) throws IOException {
+        JsonFiles.write(getPath(jar), manifest);
+    }
+}
@@ -0,0 +1,33 @@
+package systems.conduit.launcher.remap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StringPool {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        ids.put(value, strings.size());
+        strings.add(value);
+        return strings.size() - 1;
+    }
+
+    public int find(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    public String get(int id) {
+        return strings.get(id);
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
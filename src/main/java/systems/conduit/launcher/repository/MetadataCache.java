@@ -0,0 +1,94 @@
+package systems.conduit.launcher.repository;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.io.AtomicFiles;
+import systems.conduit.launcher.timing.LaunchTimeline;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+public class MetadataCache {
+
+    public static Path fetch(URL url) throws IOException {
+        // Named after the url so a mirror and upstream never share an entry
+        String key = Checksum.toHex(Checksum.createDigest("SHA-1").digest(url.toString().getBytes(StandardCharsets.UTF_8)));
+        return fetch(url, Constants.METADATA_CACHE_PATH.resolve(key));
+    }
+
+    public static Path fetch(URL url, Path body) throws IOException {
+        Path info = body.resolveSibling(body.getFileName() + ".properties");
+        Properties properties = readInfo(info);
+        boolean cached = Files.isRegularFile(body) && properties != null;
+        // Fresh enough to not even ask, so a fleet starting at once doesn't hit the server for every node
+        if (cached && System.currentTimeMillis() - Long.parseLong(properties.getProperty("checked", "0")) < Constants.METADATA_MAX_AGE) {
+            LaunchTimeline.addCacheHits(1);
+            return body;
+        }
+        Files.createDirectories(body.toAbsolutePath().getParent());
+        try {
+            URLConnection connection = FileDownloader.openConnection(url);
+            if (cached && connection instanceof HttpURLConnection) {
+                if (properties.getProperty("etag") != null) connection.setRequestProperty("If-None-Match", properties.getProperty("etag"));
+                if (properties.getProperty("lastModified") != null) connection.setRequestProperty("If-Modified-Since", properties.getProperty("lastModified"));
+            }
+            if (connection instanceof HttpURLConnection && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                ((HttpURLConnection) connection).disconnect();
+                properties.setProperty("checked", String.valueOf(System.currentTimeMillis()));
+                writeInfo(info, properties);
+                LaunchTimeline.addCacheHits(1);
+                return body;
+            }
+            try (InputStream inputStream = connection.getInputStream()) {
+                AtomicFiles.write(body, outputStream -> {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        outputStream.write(buffer, 0, read);
+                        LaunchTimeline.addBytes(read);
+                    }
+                });
+            }
+            Properties updated = new Properties();
+            updated.setProperty("url", url.toString());
+            updated.setProperty("checked", String.valueOf(System.currentTimeMillis()));
+            if (connection.getHeaderField("ETag") != null) updated.setProperty("etag", connection.getHeaderField("ETag"));
+            if (connection.getHeaderField("Last-Modified") != null) updated.setProperty("lastModified", connection.getHeaderField("Last-Modified"));
+            writeInfo(info, updated);
+            LaunchTimeline.addCacheMisses(1);
+            return body;
+        } catch (IOException e) {
+            // An outdated copy still beats not starting at all
+            if (cached) return body;
+            throw e;
+        }
+    }
+
+    private static Properties readInfo(Path info) {
+        if (!Files.isRegularFile(info)) return null;
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(info, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        // Half written or broken, same as not cached at all
+        try {
+            Long.parseLong(properties.getProperty("checked", "0"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return properties;
+    }
+
+    private static void writeInfo(Path info, Properties properties) throws IOException {
+        AtomicFiles.writeText(info, writer -> properties.store(writer, null));
+    }
+}
@@ -0,0 +1,157 @@
+package systems.conduit.launcher.repository;
+
+import systems.conduit.launcher.Constants;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Repositories {
+
+    // A repository that keeps failing is tried last until it had some time to recover
+    private static final int MAX_FAILURES = 3;
+    private static final long COOL_DOWN = 60000;
+
+    private static final Map<String, Health> health = new ConcurrentHashMap<>();
+
+    public static List<String> getCandidates(String repository) {
+        return getCandidates(repository, true);
+    }
+
+    private static List<String> getCandidates(String repository, boolean includeDefault) {
+        // Mirrors first, then where the artifact says it lives, then the default for maven artifacts
+        Set<String> candidates = new LinkedHashSet<>();
+        Constants.MIRRORS.forEach(mirror -> candidates.add(normalize(mirror)));
+        if (repository != null && !repository.trim().isEmpty()) candidates.add(normalize(repository));
+        if (includeDefault) candidates.add(normalize(Constants.DEFAULT_REPO));
+        List<String> healthy = new ArrayList<>();
+        List<String> failing = new ArrayList<>();
+        for (String candidate : candidates) {
+            (isHealthy(candidate) ? healthy : failing).add(candidate);
+        }
+        healthy.addAll(failing);
+        return healthy;
+    }
+
+    public static boolean isMirror(String repository) {
+        return Constants.MIRRORS.stream().anyMatch(mirror -> normalize(mirror).equals(normalize(repository)));
+    }
+
+    public static <T> T fetch(String repository, String path, Fetcher<T> fetcher) throws IOException {
+        return fetch(repository, true, path, fetcher);
+    }
+
+    public static <T> T fetch(String repository, boolean includeDefault, String path, Fetcher<T> fetcher) throws IOException {
+        return fetch(getCandidates(repository, includeDefault), path, fetcher);
+    }
+
+    public static <T> T fetchMirrored(URL url, Fetcher<T> fetcher) throws IOException {
+        // Anything that isn't a maven artifact, mirrors serve it at the same path as the host it comes from
+        String origin = url.getProtocol() + "://" + url.getAuthority() + "/";
+        return fetch(getCandidates(origin, false), url.getFile().substring(1), fetcher);
+    }
+
+    public static Failover failover(String repository, boolean includeDefault, String path) {
+        return new Failover(getCandidates(repository, includeDefault), path);
+    }
+
+    private static <T> T fetch(List<String> candidates, String path, Fetcher<T> fetcher) throws IOException {
+        Failover failover = new Failover(candidates, path);
+        String candidate;
+        while ((candidate = failover.next()) != null) {
+            try {
+                T result = fetcher.fetch(candidate, failover.getUrl(candidate));
+                failover.succeeded(candidate);
+                return result;
+            } catch (IOException e) {
+                // Being stopped is not the repository's fault
+                if (Thread.currentThread().isInterrupted()) throw e;
+                failover.failed(candidate, e);
+            }
+        }
+        throw failover.getError();
+    }
+
+    public static String normalize(String repository) {
+        String trimmed = repository.trim();
+        return trimmed.endsWith("/") ? trimmed : trimmed + "/";
+    }
+
+    private static boolean isHealthy(String repository) {
+        Health state = health.get(repository);
+        if (state == null) return true;
+        synchronized (state) {
+            return state.failures < MAX_FAILURES || System.currentTimeMillis() - state.lastFailure > COOL_DOWN;
+        }
+    }
+
+    private static void succeeded(String repository) {
+        Health state = health.get(repository);
+        if (state == null) return;
+        synchronized (state) {
+            state.failures = 0;
+        }
+    }
+
+    private static void failed(String repository) {
+        Health state = health.computeIfAbsent(repository, key -> new Health());
+        synchronized (state) {
+            state.failures++;
+            state.lastFailure = System.currentTimeMillis();
+        }
+    }
+
+    // Tries the candidates one after another, callers that can't block between tries drive it themselves
+    public static class Failover {
+
+        private final Iterator<String> candidates;
+        private final String path;
+        private IOException notFound;
+        private IOException failure;
+
+        private Failover(List<String> candidates, String path) {
+            this.candidates = candidates.iterator();
+            this.path = path;
+        }
+
+        public String next() {
+            return candidates.hasNext() ? candidates.next() : null;
+        }
+
+        public URL getUrl(String candidate) throws IOException {
+            return new URL(candidate + path);
+        }
+
+        public void succeeded(String candidate) {
+            Repositories.succeeded(candidate);
+        }
+
+        public void failed(String candidate, IOException e) {
+            if (e instanceof FileNotFoundException) {
+                // Not having an artifact says nothing about the repository itself
+                if (notFound == null) notFound = e;
+                return;
+            }
+            Repositories.failed(candidate);
+            failure = e;
+        }
+
+        public IOException getError() {
+            // Missing everywhere that answered says more than a mirror that was down
+            if (notFound != null) return notFound;
+            return failure != null ? failure : new FileNotFoundException(path);
+        }
+    }
+
+    public interface Fetcher<T> {
+        T fetch(String repository, URL url) throws IOException;
+    }
+
+    private static class Health {
+
+        private int failures;
+        private long lastFailure;
+    }
+}
@@ -0,0 +1,340 @@
+package systems.conduit.launcher.resolve;
+
+import lombok.RequiredArgsConstructor;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.download.DownloadExecutor;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.json.download.JsonLibraryInfo;
+import systems.conduit.launcher.repository.MetadataCache;
+import systems.conduit.launcher.repository.Repositories;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class DependencyResolver {
+
+    // Raising a version can pull in a different set of dependencies, so resolve again until nothing moves
+    private static final int MAX_PASSES = 8;
+    private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+    private final Path librariesPath;
+    private final DownloadExecutor executor;
+    private final boolean includeDefault;
+    private final Map<String, Optional<Effective>> poms = new HashMap<>();
+    // Poms no repository has, so nothing asks every repository for them twice
+    private final Set<String> missingPoms = new HashSet<>();
+    private final Map<String, List<String>> availableVersions = new HashMap<>();
+
+    public DependencyResolver(Path librariesPath, DownloadExecutor executor) {
+        this(librariesPath, executor, true);
+    }
+
+    DependencyResolver(Path librariesPath, DownloadExecutor executor, boolean includeDefault) {
+        this.librariesPath = librariesPath;
+        this.executor = executor;
+        this.includeDefault = includeDefault;
+    }
+
+    public Resolution resolve(Map<String, List<JsonLibraryInfo>> batch, Map<String, String> loaded, boolean transitive) {
+        List<Request> roots = new ArrayList<>();
+        for (Map.Entry<String, List<JsonLibraryInfo>> entry : batch.entrySet()) {
+            for (JsonLibraryInfo library : entry.getValue()) {
+                boolean maven = library.getType() != null && library.getType().trim().equalsIgnoreCase("maven");
+                String repository = library.getUrl() != null && !library.getUrl().trim().isEmpty() ? library.getUrl().trim() : Constants.DEFAULT_REPO;
+                // Anything that is not a maven artifact can only ever be used as declared
+                roots.add(new Request(entry.getKey(), library.getGroupId(), library.getArtifactId(), library.getVersion(), repository,
+                        library.isPinned() || !maven, maven && library.isTransitive(), Collections.emptySet(), library));
+            }
+        }
+        Map<String, String> versions = new HashMap<>();
+        Map<String, Request> chosen = new LinkedHashMap<>();
+        Set<String> conflicts = new LinkedHashSet<>();
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            chosen = new LinkedHashMap<>();
+            conflicts = new LinkedHashSet<>();
+            Set<String> expanded = new HashSet<>();
+            List<Request> level = roots;
+            while (!level.isEmpty()) {
+                if (transitive) prefetch(level, versions);
+                List<Request> next = new ArrayList<>();
+                for (Request request : level) {
+                    String key = request.getKey();
+                    // Whatever is already on the classpath can't be swapped out anymore
+                    String loadedVersion = loaded.get(key);
+                    if (loadedVersion != null) {
+                        if (!loadedVersion.equals(request.version)) conflicts.add(key + ": kept " + loadedVersion + " over " + request.version + " (already loaded)");
+                        continue;
+                    }
+                    Request current = chosen.get(key);
+                    if (current == null) {
+                        chosen.put(key, request);
+                    } else if (wins(request, current)) {
+                        chosen.put(key, request);
+                        conflicts.add(key + ": picked " + request.version + " over " + current.version + (request.pinned ? " (pinned)" : " (highest)"));
+                    } else if (!current.version.equals(request.version)) {
+                        conflicts.add(key + ": picked " + current.version + " over " + request.version + (current.pinned ? " (pinned)" : " (highest)"));
+                    }
+                    // Each artifact is expanded once, at the version the previous pass settled on
+                    if (!transitive || !request.transitive || !expanded.add(key)) continue;
+                    Effective pom = loadPom(request.groupId, request.artifactId, versions.getOrDefault(key, request.version), request.repository);
+                    if (pom == null) continue;
+                    for (Pom.Dependency dependency : pom.pom.getDependencies()) {
+                        if (isExcluded(request.exclusions, dependency)) continue;
+                        Set<String> exclusions = new HashSet<>(request.exclusions);
+                        exclusions.addAll(dependency.getExclusions());
+                        next.add(new Request(request.type, dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion(), pom.pom.getRepository(),
+                                false, true, exclusions, null));
+                    }
+                }
+                level = next;
+            }
+            Map<String, String> picked = new HashMap<>();
+            chosen.forEach((key, request) -> picked.put(key, request.version));
+            if (picked.equals(versions)) break;
+            versions = picked;
+        }
+        List<ResolvedLibrary> libraries = new ArrayList<>();
+        for (Request request : chosen.values()) {
+            JsonLibraryInfo library = request.library != null ? request.library : new JsonLibraryInfo("maven", request.groupId, request.artifactId, request.version, request.repository);
+            libraries.add(new ResolvedLibrary(request.type, library, request.library == null));
+        }
+        return new Resolution(libraries, conflicts);
+    }
+
+    public static String getPath(String groupId, String artifactId, String version) {
+        return groupId.replaceAll("\\.", "/") + "/" + artifactId + "/" + version + "/";
+    }
+
+    private static boolean wins(Request request, Request current) {
+        // The first pinned declaration always wins, otherwise the highest version does
+        if (current.pinned) return false;
+        if (request.pinned) return true;
+        return MavenVersion.compare(request.version, current.version) > 0;
+    }
+
+    private static boolean isExcluded(Set<String> exclusions, Pom.Dependency dependency) {
+        return exclusions.contains(dependency.getKey()) || exclusions.contains(dependency.getGroupId() + ":*") || exclusions.contains("*:*");
+    }
+
+    private void prefetch(List<Request> level, Map<String, String> versions) {
+        if (executor == null) return;
+        // Fetch the whole level at once instead of one pom after another
+        Map<String, Future<File>> futures = new LinkedHashMap<>();
+        Set<String> queued = new HashSet<>();
+        for (Request request : level) {
+            if (!request.transitive) continue;
+            String version = versions.getOrDefault(request.getKey(), request.version);
+            String coordinate = request.getKey() + ":" + version;
+            if (poms.containsKey(coordinate) || missingPoms.contains(coordinate) || !queued.add(coordinate)) continue;
+            File file = getPomFile(request.groupId, request.artifactId, version);
+            if (file.exists()) continue;
+            try {
+                Files.createDirectories(file.getParentFile().toPath());
+                futures.put(coordinate, executor.submitWithSidecar(request.repository, includeDefault, getPomPath(request.groupId, request.artifactId, version), file));
+            } catch (IOException e) {
+                // Picked up again when the pom is loaded
+            }
+        }
+        for (Map.Entry<String, Future<File>> future : futures.entrySet()) {
+            try {
+                future.getValue().get();
+            } catch (ExecutionException e) {
+                // Anything other than a missing pom is tried again when it is loaded
+                if (e.getCause() instanceof FileNotFoundException) missingPoms.add(future.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Effective loadPom(String groupId, String artifactId, String version, String repository) {
+        String coordinate = groupId + ":" + artifactId + ":" + version;
+        Optional<Effective> cached = poms.get(coordinate);
+        if (cached != null) return cached.orElse(null);
+        // Guards against a parent chain that points back at itself
+        poms.put(coordinate, Optional.empty());
+        Effective effective = null;
+        try {
+            String found = downloadPom(groupId, artifactId, version, repository);
+            if (found != null) effective = createEffective(PomReader.read(getPomFile(groupId, artifactId, version)), found);
+        } catch (IOException e) {
+            // Treat it as having no dependencies, the jar itself might still be there
+        }
+        poms.put(coordinate, Optional.ofNullable(effective));
+        return effective;
+    }
+
+    private String downloadPom(String groupId, String artifactId, String version, String repository) {
+        File file = getPomFile(groupId, artifactId, version);
+        if (file.exists()) return repository;
+        String coordinate = groupId + ":" + artifactId + ":" + version;
+        if (missingPoms.contains(coordinate)) return null;
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            String found = Repositories.fetch(repository, includeDefault, getPomPath(groupId, artifactId, version), (candidate, url) -> {
+                FileDownloader.download(url, file, FileDownloader.readSidecar(url));
+                return candidate;
+            });
+            // Dependencies keep pointing at where the artifact really lives, mirrors are added again anyway
+            return Repositories.isMirror(found) ? repository : found;
+        } catch (FileNotFoundException e) {
+            missingPoms.add(coordinate);
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Effective createEffective(Pom.Raw raw, String repository) {
+        Effective parent = null;
+        if (raw.parentGroupId != null && raw.parentArtifactId != null && raw.parentVersion != null) {
+            parent = loadPom(raw.parentGroupId, raw.parentArtifactId, raw.parentVersion, repository);
+        }
+        String groupId = raw.groupId != null ? raw.groupId : raw.parentGroupId;
+        String version = raw.version != null ? raw.version : raw.parentVersion;
+        Map<String, String> properties = new HashMap<>();
+        if (parent != null) properties.putAll(parent.properties);
+        properties.putAll(raw.properties);
+        properties.put("project.groupId", groupId);
+        properties.put("project.artifactId", raw.artifactId);
+        properties.put("project.version", version);
+        properties.put("pom.groupId", groupId);
+        properties.put("pom.version", version);
+        properties.put("groupId", groupId);
+        properties.put("version", version);
+        if (raw.parentVersion != null) {
+            properties.put("project.parent.groupId", raw.parentGroupId);
+            properties.put("project.parent.version", raw.parentVersion);
+            properties.put("parent.version", raw.parentVersion);
+        }
+        Map<String, String> managed = new HashMap<>();
+        if (parent != null) managed.putAll(parent.managed);
+        List<Pom.RawDependency> imports = new ArrayList<>();
+        for (Pom.RawDependency dependency : raw.managed) {
+            if ("import".equals(dependency.scope) && "pom".equals(dependency.type)) {
+                imports.add(dependency);
+                continue;
+            }
+            if (dependency.version != null) managed.put(interpolate(dependency.groupId, properties) + ":" + interpolate(dependency.artifactId, properties), interpolate(dependency.version, properties));
+        }
+        // Boms only fill in what the pom and its parents leave open, and the first one listed wins
+        for (Pom.RawDependency bom : imports) {
+            String bomGroupId = interpolate(bom.groupId, properties);
+            String bomArtifactId = interpolate(bom.artifactId, properties);
+            String bomVersion = bom.version != null ? resolveVersion(bomGroupId, bomArtifactId, interpolate(bom.version, properties), repository) : null;
+            if (bomVersion == null || bomVersion.contains("${")) continue;
+            Effective imported = loadPom(bomGroupId, bomArtifactId, bomVersion, repository);
+            if (imported != null) imported.managed.forEach(managed::putIfAbsent);
+        }
+        // Children inherit the dependencies of their parent
+        Map<String, Pom.Dependency> dependencies = new LinkedHashMap<>();
+        if (parent != null) parent.pom.getDependencies().forEach(dependency -> dependencies.put(dependency.getKey(), dependency));
+        for (Pom.RawDependency dependency : raw.dependencies) {
+            if (!isRuntime(dependency)) continue;
+            String key = interpolate(dependency.groupId, properties) + ":" + interpolate(dependency.artifactId, properties);
+            String dependencyVersion = dependency.version != null ? interpolate(dependency.version, properties) : managed.get(key);
+            if (dependencyVersion == null || dependencyVersion.contains("${")) continue;
+            String[] coordinates = key.split(":");
+            String resolved = resolveVersion(coordinates[0], coordinates[1], dependencyVersion, repository);
+            if (resolved == null) continue;
+            dependencies.put(key, new Pom.Dependency(coordinates[0], coordinates[1], resolved, dependency.exclusions));
+        }
+        Pom pom = new Pom(groupId, raw.artifactId, version, repository, new ArrayList<>(dependencies.values()));
+        return new Effective(pom, properties, managed);
+    }
+
+    private static boolean isRuntime(Pom.RawDependency dependency) {
+        if (dependency.optional || dependency.classifier != null) return false;
+        if (dependency.type != null && !dependency.type.equals("jar") && !dependency.type.equals("bundle")) return false;
+        return dependency.scope == null || dependency.scope.equals("compile") || dependency.scope.equals("runtime");
+    }
+
+    private String resolveVersion(String groupId, String artifactId, String version, String repository) {
+        if (!VersionRange.isRange(version)) return version;
+        VersionRange range = VersionRange.parse(version);
+        if (range == null) return null;
+        String picked = range.pick(getAvailableVersions(groupId, artifactId, repository));
+        // Nothing known to be in the range is left out rather than guessed at
+        return picked != null ? picked : range.getFallback();
+    }
+
+    private List<String> getAvailableVersions(String groupId, String artifactId, String repository) {
+        String key = groupId + ":" + artifactId;
+        List<String> cached = availableVersions.get(key);
+        if (cached != null) return cached;
+        File file = new File(librariesPath.toFile() + File.separator + groupId.replaceAll("\\.", "/") + "/" + artifactId, "maven-metadata.xml");
+        // Revalidated through the metadata cache, so a warm start doesn't download it again. Offline runs use whatever an earlier run left
+        if (executor != null) {
+            try {
+                Repositories.fetch(repository, includeDefault, groupId.replaceAll("\\.", "/") + "/" + artifactId + "/maven-metadata.xml", (candidate, url) -> MetadataCache.fetch(url, file.toPath()));
+            } catch (IOException ignored) {
+            }
+        }
+        List<String> versions = Collections.emptyList();
+        try {
+            if (file.isFile()) versions = PomReader.readVersions(file);
+        } catch (IOException ignored) {
+        }
+        availableVersions.put(key, versions);
+        return versions;
+    }
+
+    private static String interpolate(String value, Map<String, String> properties) {
+        if (value == null) return null;
+        for (int i = 0; i < 10 && value.contains("${"); i++) {
+            Matcher matcher = PROPERTY.matcher(value);
+            StringBuffer buffer = new StringBuffer();
+            while (matcher.find()) {
+                String replacement = properties.get(matcher.group(1));
+                matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+            }
+            matcher.appendTail(buffer);
+            if (buffer.toString().equals(value)) break;
+            value = buffer.toString();
+        }
+        return value;
+    }
+
+    private File getPomFile(String groupId, String artifactId, String version) {
+        return new File(librariesPath.toFile() + File.separator + getPath(groupId, artifactId, version), artifactId + "-" + version + ".pom");
+    }
+
+    private static String getPomPath(String groupId, String artifactId, String version) {
+        return getPath(groupId, artifactId, version) + artifactId + "-" + version + ".pom";
+    }
+
+    @RequiredArgsConstructor
+    private static class Request {
+
+        private final String type;
+        private final String groupId;
+        private final String artifactId;
+        private final String version;
+        private final String repository;
+        private final boolean pinned;
+        private final boolean transitive;
+        private final Set<String> exclusions;
+        private final JsonLibraryInfo library;
+
+        private String getKey() {
+            return groupId + ":" + artifactId;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Effective {
+
+        private final Pom pom;
+        private final Map<String, String> properties;
+        private final Map<String, String> managed;
+    }
+}
@@ -0,0 +1,103 @@
+package systems.conduit.launcher.resolve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class MavenVersion implements Comparable<MavenVersion> {
+
+    private final String version;
+    private final List<Object> items = new ArrayList<>();
+
+    public MavenVersion(String version) {
+        this.version = version;
+        // Numbers compare as numbers, everything else is a qualifier like alpha, beta or rc
+        for (String part : version.toLowerCase(Locale.ROOT).split("[.\\-_]")) {
+            if (part.isEmpty()) continue;
+            int start = 0;
+            for (int i = 1; i <= part.length(); i++) {
+                if (i == part.length() || Character.isDigit(part.charAt(i)) != Character.isDigit(part.charAt(start))) {
+                    String token = part.substring(start, i);
+                    items.add(Character.isDigit(token.charAt(0)) ? (Object) Long.parseLong(token.length() > 18 ? token.substring(0, 18) : token) : token);
+                    start = i;
+                }
+            }
+        }
+        // 1.0 and 1.0.0 are the same version, and so are 1.0-beta and 1-beta
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (Long.valueOf(0).equals(items.get(i)) && (i == items.size() - 1 || items.get(i + 1) instanceof String)) items.remove(i);
+        }
+    }
+
+    public static int compare(String first, String second) {
+        return new MavenVersion(first).compareTo(new MavenVersion(second));
+    }
+
+    @Override
+    public int compareTo(MavenVersion other) {
+        int size = Math.max(items.size(), other.items.size());
+        for (int i = 0; i < size; i++) {
+            int result = compareItem(i < items.size() ? items.get(i) : null, i < other.items.size() ? other.items.get(i) : null);
+            if (result != 0) return result;
+        }
+        return 0;
+    }
+
+    private static int compareItem(Object first, Object second) {
+        if (first instanceof Long && second instanceof Long) return ((Long) first).compareTo((Long) second);
+        // A release is newer than any of its qualifiers, except sp and the like which come after it
+        if (first == null) return second instanceof Long ? -1 : -qualifierOrder((String) second);
+        if (second == null) return first instanceof Long ? 1 : qualifierOrder((String) first);
+        if (first instanceof Long) return 1;
+        if (second instanceof Long) return -1;
+        int result = Integer.compare(qualifierRank((String) first), qualifierRank((String) second));
+        return result != 0 ? result : ((String) first).compareTo((String) second);
+    }
+
+    private static int qualifierOrder(String qualifier) {
+        return qualifierRank(qualifier) > qualifierRank("") ? 1 : -1;
+    }
+
+    private static int qualifierRank(String qualifier) {
+        switch (qualifier) {
+            case "a":
+            case "alpha":
+                return 0;
+            case "b":
+            case "beta":
+                return 1;
+            case "m":
+            case "milestone":
+                return 2;
+            case "rc":
+            case "cr":
+                return 3;
+            case "snapshot":
+                return 4;
+            case "":
+            case "ga":
+            case "final":
+            case "release":
+                return 5;
+            case "sp":
+                return 6;
+            default:
+                return 7;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MavenVersion && compareTo((MavenVersion) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return items.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return version;
+    }
+}
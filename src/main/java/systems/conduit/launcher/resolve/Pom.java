@@ -0,0 +1,58 @@
+package systems.conduit.launcher.resolve;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class Pom {
+
+    @Getter private final String groupId;
+    @Getter private final String artifactId;
+    @Getter private final String version;
+    @Getter private final String repository;
+    @Getter private final List<Dependency> dependencies;
+
+    @RequiredArgsConstructor
+    public static class Dependency {
+
+        @Getter private final String groupId;
+        @Getter private final String artifactId;
+        @Getter private final String version;
+        @Getter private final Set<String> exclusions;
+
+        public String getKey() {
+            return groupId + ":" + artifactId;
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class Raw {
+
+        final String groupId;
+        final String artifactId;
+        final String version;
+        final String parentGroupId;
+        final String parentArtifactId;
+        final String parentVersion;
+        final Map<String, String> properties;
+        final List<RawDependency> managed;
+        final List<RawDependency> dependencies;
+    }
+
+    @RequiredArgsConstructor
+    static class RawDependency {
+
+        final String groupId;
+        final String artifactId;
+        final String version;
+        final String scope;
+        final String type;
+        final String classifier;
+        final boolean optional;
+        final Set<String> exclusions;
+    }
+}
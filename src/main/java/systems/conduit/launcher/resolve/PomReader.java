@@ -0,0 +1,111 @@
+package systems.conduit.launcher.resolve;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+public class PomReader {
+
+    static Pom.Raw read(File file) throws IOException {
+        Element project = parse(file);
+        Element parent = child(project, "parent");
+        Map<String, String> properties = new LinkedHashMap<>();
+        Element propertiesElement = child(project, "properties");
+        if (propertiesElement != null) {
+            for (Element property : children(propertiesElement, null)) {
+                properties.put(property.getTagName(), property.getTextContent().trim());
+            }
+        }
+        Element management = child(project, "dependencyManagement");
+        return new Pom.Raw(
+                text(project, "groupId"),
+                text(project, "artifactId"),
+                text(project, "version"),
+                parent != null ? text(parent, "groupId") : null,
+                parent != null ? text(parent, "artifactId") : null,
+                parent != null ? text(parent, "version") : null,
+                properties,
+                readDependencies(management != null ? child(management, "dependencies") : null),
+                readDependencies(child(project, "dependencies"))
+        );
+    }
+
+    static List<String> readVersions(File file) throws IOException {
+        // maven-metadata.xml, every version the repository has of one artifact
+        Element versioning = child(parse(file), "versioning");
+        Element versions = versioning != null ? child(versioning, "versions") : null;
+        if (versions == null) return Collections.emptyList();
+        List<String> result = new ArrayList<>();
+        for (Element version : children(versions, "version")) {
+            result.add(version.getTextContent().trim());
+        }
+        return result;
+    }
+
+    private static Element parse(File file) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            // POMs never need a DTD, and fetching one would hit the network
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(file).getDocumentElement();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid pom " + file, e);
+        }
+    }
+
+    private static List<Pom.RawDependency> readDependencies(Element dependencies) {
+        if (dependencies == null) return Collections.emptyList();
+        List<Pom.RawDependency> result = new ArrayList<>();
+        for (Element dependency : children(dependencies, "dependency")) {
+            Set<String> exclusions = new HashSet<>();
+            Element exclusionsElement = child(dependency, "exclusions");
+            if (exclusionsElement != null) {
+                for (Element exclusion : children(exclusionsElement, "exclusion")) {
+                    exclusions.add(text(exclusion, "groupId") + ":" + text(exclusion, "artifactId"));
+                }
+            }
+            result.add(new Pom.RawDependency(
+                    text(dependency, "groupId"),
+                    text(dependency, "artifactId"),
+                    text(dependency, "version"),
+                    text(dependency, "scope"),
+                    text(dependency, "type"),
+                    text(dependency, "classifier"),
+                    "true".equals(text(dependency, "optional")),
+                    exclusions
+            ));
+        }
+        return result;
+    }
+
+    private static String text(Element element, String name) {
+        Element child = child(element, name);
+        return child != null ? child.getTextContent().trim() : null;
+    }
+
+    private static Element child(Element element, String name) {
+        List<Element> children = children(element, name);
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    private static List<Element> children(Element element, String name) {
+        // Only direct children, the same tag names show up again deeper in the tree
+        List<Element> result = new ArrayList<>();
+        NodeList nodes = element.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (node instanceof Element && (name == null || name.equals(((Element) node).getTagName()))) result.add((Element) node);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package systems.conduit.launcher.resolve;
+
+import lombok.Getter;
+
+import java.util.*;
+
+public class Resolution {
+
+    // Keyed by groupId:artifactId, iterated in classpath order
+    private final Map<String, ResolvedLibrary> libraries = new LinkedHashMap<>();
+    @Getter private final List<String> conflicts;
+
+    Resolution(Collection<ResolvedLibrary> libraries, Collection<String> conflicts) {
+        for (ResolvedLibrary library : libraries) {
+            this.libraries.put(library.getKey(), library);
+        }
+        this.conflicts = Collections.unmodifiableList(new ArrayList<>(conflicts));
+    }
+
+    public Collection<ResolvedLibrary> getLibraries() {
+        return Collections.unmodifiableCollection(libraries.values());
+    }
+
+    public int size() {
+        return libraries.size();
+    }
+}
@@ -0,0 +1,17 @@
+package systems.conduit.launcher.resolve;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import systems.conduit.launcher.json.download.JsonLibraryInfo;
+
+@RequiredArgsConstructor
+public class ResolvedLibrary {
+
+    @Getter private final String type;
+    @Getter private final JsonLibraryInfo library;
+    @Getter private final boolean transitive;
+
+    public String getKey() {
+        return library.getGroupId() + ":" + library.getArtifactId();
+    }
+}
@@ -0,0 +1,96 @@
+package systems.conduit.launcher.resolve;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class VersionRange {
+
+    private static final Pattern INTERVAL = Pattern.compile("([\\[(])([^\\])]*)([\\])])");
+
+    private final List<Interval> intervals;
+
+    private VersionRange(List<Interval> intervals) {
+        this.intervals = intervals;
+    }
+
+    public static boolean isRange(String version) {
+        return version.startsWith("[") || version.startsWith("(");
+    }
+
+    public static VersionRange parse(String range) {
+        // Several intervals can be listed, [1.0,2.0),[3.0,) is anything but 2.x
+        List<Interval> intervals = new ArrayList<>();
+        Matcher matcher = INTERVAL.matcher(range);
+        int end = 0;
+        while (matcher.find()) {
+            if (!range.substring(end, matcher.start()).replace(",", "").trim().isEmpty()) return null;
+            end = matcher.end();
+            boolean lowerInclusive = matcher.group(1).equals("[");
+            boolean upperInclusive = matcher.group(3).equals("]");
+            String[] bounds = matcher.group(2).split(",", -1);
+            if (bounds.length == 1) {
+                // [1.0] is exactly that version
+                if (!lowerInclusive || !upperInclusive || bounds[0].trim().isEmpty()) return null;
+                intervals.add(new Interval(bounds[0].trim(), true, bounds[0].trim(), true));
+            } else if (bounds.length == 2) {
+                String lower = bounds[0].trim().isEmpty() ? null : bounds[0].trim();
+                String upper = bounds[1].trim().isEmpty() ? null : bounds[1].trim();
+                intervals.add(new Interval(lower, lowerInclusive, upper, upperInclusive));
+            } else {
+                return null;
+            }
+        }
+        if (intervals.isEmpty() || !range.substring(end).trim().isEmpty()) return null;
+        return new VersionRange(intervals);
+    }
+
+    public boolean contains(String version) {
+        return intervals.stream().anyMatch(interval -> interval.contains(version));
+    }
+
+    public String pick(Collection<String> available) {
+        // Like maven, the highest version the repository has inside the range
+        String best = null;
+        for (String version : available) {
+            if (version.endsWith("-SNAPSHOT") || !contains(version)) continue;
+            if (best == null || MavenVersion.compare(version, best) > 0) best = version;
+        }
+        return best;
+    }
+
+    public String getFallback() {
+        // Without a version list only an inclusive bound is known to be inside the range
+        String best = null;
+        for (Interval interval : intervals) {
+            String bound = interval.lowerInclusive ? interval.lower : interval.upperInclusive ? interval.upper : null;
+            if (bound != null && (best == null || MavenVersion.compare(bound, best) > 0)) best = bound;
+        }
+        return best;
+    }
+
+    @RequiredArgsConstructor
+    private static class Interval {
+
+        private final String lower;
+        private final boolean lowerInclusive;
+        private final String upper;
+        private final boolean upperInclusive;
+
+        private boolean contains(String version) {
+            if (lower != null) {
+                int result = MavenVersion.compare(version, lower);
+                if (result < 0 || (result == 0 && !lowerInclusive)) return false;
+            }
+            if (upper != null) {
+                int result = MavenVersion.compare(version, upper);
+                if (result > 0 || (result == 0 && !upperInclusive)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import cpw.mods.modlauncher.api.ITransformingClassLoader;
 import cpw.mods.modlauncher.api.ITransformingClassLoaderBuilder;
 import org.spongepowered.asm.mixin.Mixins;
 import systems.conduit.launcher.MainStart;
+import systems.conduit.launcher.pack.ClassLoadOrder;
+import systems.conduit.launcher.transform.TransformCache;
 
 import java.lang.reflect.Method;
 import java.nio.file.Path;
@@ -21,15 +23,25 @@ public class ServerLaunchHandlerService implements ILaunchHandlerService {
     public void configureTransformationClassLoader(final ITransformingClassLoaderBuilder builder) {
         // Add transformation paths
         MainStart.PATHS.forEach(builder::addTransformationPath);
+        // Cached classes already have every mixin applied
+        if (TransformCache.getMode() == TransformCache.Mode.SERVE || ClassLoadOrder.isRecording()) {
+            // Every class the server asks for passes through here, in the order it needs them
+            builder.setClassBytesLocator(name -> {
+                // Targets loaded for the transform cache are not part of the server's load order
+                if (!TransformCache.isCacheThread()) ClassLoadOrder.record(name);
+                return TransformCache.locate(name);
+            });
+        }
     }
 
     @Override
     public Callable<Void> launchService(String[] args, ITransformingClassLoader launchClassLoader) {
-        // Add mixins to configure
-        MainStart.MIXINS.forEach(Mixins::addConfiguration);
+        // Add mixins to configure, unless every class they touch comes from the transform cache
+        if (TransformCache.getMode() != TransformCache.Mode.SERVE) MainStart.MIXINS.forEach(Mixins::addConfiguration);
         return () -> {
             final Class<?> mcClass = Class.forName("net.minecraft.server.MinecraftServer", true, launchClassLoader.getInstance());
             final Method mcClassMethod = mcClass.getMethod("main", String[].class);
+            TransformCache.start(launchClassLoader.getInstance());
             mcClassMethod.invoke(null, (Object) args);
             return null;
         };
@@ -0,0 +1,136 @@
+package systems.conduit.launcher.store;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.io.AtomicFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SharedStore {
+
+    // File locks are per process, so threads of this launcher queue up here first
+    private static final Map<Path, Object> localLocks = new ConcurrentHashMap<>();
+    private static SharedStore instance;
+
+    private final Path objects;
+    private final Path locks;
+
+    public SharedStore(Path root) {
+        this.objects = root.resolve("objects");
+        this.locks = root.resolve("locks");
+    }
+
+    public static synchronized SharedStore get() {
+        // Only used when a store is configured for this host
+        if (instance == null && Constants.SHARED_STORE_PATH != null) instance = new SharedStore(Constants.SHARED_STORE_PATH);
+        return instance;
+    }
+
+    public static String key(Checksum checksum) {
+        if (checksum == null) return null;
+        return checksum.getAlgorithm().equals("SHA-1") ? checksum.getValue() : checksum.getAlgorithm().toLowerCase().replace("-", "") + "-" + checksum.getValue();
+    }
+
+    public void provide(Checksum checksum, File target, Provider provider) throws IOException {
+        // Objects named after their content are checked against it before anything links them
+        provide(key(checksum), target, file -> {
+            Checksum actual = FileDownloader.hash(file, checksum.getAlgorithm());
+            if (!actual.getValue().equals(checksum.getValue())) throw new IOException("Checksum mismatch for " + file + " (expected " + checksum + ")");
+        }, provider);
+    }
+
+    public void provide(String key, File target, Verifier verifier, Provider provider) throws IOException {
+        if (key == null) {
+            provider.provide();
+            return;
+        }
+        if (isValid(key, verifier)) {
+            link(key, target);
+            return;
+        }
+        // Only one launcher on the host fetches a given object, everyone else waits and links it
+        Path lock = locks.resolve(key + ".lock").toAbsolutePath();
+        synchronized (localLocks.computeIfAbsent(lock, path -> new Object())) {
+            Files.createDirectories(locks);
+            try (FileChannel channel = FileChannel.open(lock, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock fileLock = channel.lock();
+                try {
+                    if (isValid(key, verifier)) {
+                        link(key, target);
+                        return;
+                    }
+                    // A broken object would be linked by every instance on every start, so it goes
+                    remove(key);
+                    provider.provide();
+                    verifier.verify(target);
+                    add(key, target);
+                } finally {
+                    fileLock.release();
+                }
+            }
+        }
+    }
+
+    private boolean isValid(String key, Verifier verifier) {
+        Path object = getPath(key);
+        if (!Files.isRegularFile(object)) return false;
+        try {
+            verifier.verify(object.toFile());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void link(String key, File target) throws IOException {
+        Path object = getPath(key);
+        Path temp = target.toPath().resolveSibling(target.getName() + ".link");
+        Files.deleteIfExists(temp);
+        try {
+            // Hard links let the page cache share the bytes between every instance
+            Files.createLink(temp, object);
+        } catch (UnsupportedOperationException | IOException e) {
+            try {
+                Files.createSymbolicLink(temp, object.toAbsolutePath());
+            } catch (UnsupportedOperationException | IOException ex) {
+                Files.copy(object, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        AtomicFiles.move(temp, target.toPath());
+    }
+
+    private void add(String key, File source) throws IOException {
+        Path object = getPath(key);
+        Files.createDirectories(object.getParent());
+        AtomicFiles.write(object, outputStream -> Files.copy(source.toPath(), outputStream));
+        // Linked files share an inode, so nothing may ever write to a stored object
+        object.toFile().setReadOnly();
+        link(key, source);
+    }
+
+    private void remove(String key) throws IOException {
+        Path object = getPath(key);
+        // Stored objects are read only, which stops some platforms from deleting them
+        object.toFile().setWritable(true);
+        Files.deleteIfExists(object);
+    }
+
+    private Path getPath(String key) {
+        return objects.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    public interface Provider {
+        void provide() throws IOException;
+    }
+
+    public interface Verifier {
+        void verify(File file) throws IOException;
+    }
+}
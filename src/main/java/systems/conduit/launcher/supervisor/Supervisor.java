@@ -0,0 +1,189 @@
+package systems.conduit.launcher.supervisor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.cds.ClassDataSharing;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Supervisor {
+
+    private static final Logger logger = LogManager.getLogger(Constants.LOGGER_NAME);
+    private static final int SPAWN_ATTEMPTS = 3;
+    private static final long SPAWN_RETRY_DELAY = 5000;
+
+    private static volatile Generation current;
+
+    public static boolean isChild() {
+        return Constants.SUPERVISOR_PORT != 0;
+    }
+
+    public static int run(List<File> classpath, List<String> args) throws IOException, InterruptedException {
+        List<String> options = new ArrayList<>();
+        if (Constants.CDS_ENABLED && ClassDataSharing.isSupported() && ClassDataSharing.isArchiveValid(classpath)) {
+            options.add("-XX:SharedArchiveFile=" + ClassDataSharing.ARCHIVE_PATH.toAbsolutePath());
+        }
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            options.add("-Dlauncher.supervisorPort=" + server.getLocalPort());
+            // Children get everything on the real class path, so they skip straight to the handoff
+            List<String> command = ClassDataSharing.getCommand(options, classpath, args, true);
+            List<Generation> generations = Collections.synchronizedList(new ArrayList<>());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> generations.forEach(generation -> generation.process.destroy()), "Launcher-Supervisor-Shutdown"));
+            startConsole();
+            int count = 1;
+            Generation spare = spawnSpare(server, command, count, generations);
+            while (true) {
+                if (spare == null) {
+                    logger.fatal("Unable to start a server generation, stopping supervisor");
+                    return 1;
+                }
+                Generation generation = spare;
+                try {
+                    generation.start();
+                } catch (IOException e) {
+                    // It died while it was parked, so start another one in its place
+                    logger.warn("Server generation " + generation.id + " exited before it was started");
+                    generation.process.destroy();
+                    generations.remove(generation);
+                    spare = spawnSpare(server, command, ++count, generations);
+                    continue;
+                }
+                current = generation;
+                logger.info("Started server generation " + generation.id);
+                // Warm the next one while this one runs
+                spare = spawnSpare(server, command, ++count, generations);
+                int exitCode = generation.process.waitFor();
+                generations.remove(generation);
+                long uptime = System.currentTimeMillis() - generation.started;
+                if (uptime < Constants.SUPERVISOR_MIN_UPTIME) {
+                    // Restarting something that cannot start only loops, whatever code it exits with
+                    logger.fatal("Server generation " + generation.id + " exited after " + uptime + "ms (exit code " + exitCode + "), stopping supervisor");
+                    if (spare != null) spare.process.destroy();
+                    return exitCode;
+                }
+                if (exitCode == 0) {
+                    logger.info("Server generation " + generation.id + " stopped, stopping supervisor");
+                    if (spare != null) spare.process.destroy();
+                    return 0;
+                }
+                logger.info("Server generation " + generation.id + " exited (exit code " + exitCode + "), restarting");
+                if (spare == null || !spare.process.isAlive()) {
+                    if (spare != null) generations.remove(spare);
+                    spare = spawnSpare(server, command, ++count, generations);
+                }
+            }
+        }
+    }
+
+    public static void park() {
+        // Everything up to the handoff is done, wait until the supervisor needs this server
+        try {
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), Constants.SUPERVISOR_PORT);
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write("ready\n");
+            writer.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            if (!"start".equals(reader.readLine())) System.exit(0);
+        } catch (IOException e) {
+            // The supervisor went away, so nobody will ever start this one
+            System.exit(0);
+        }
+    }
+
+    private static Generation spawnSpare(ServerSocket server, List<String> command, int id, List<Generation> generations) throws InterruptedException {
+        // A spare that fails is only logged and tried again, the running generation must never go down with it
+        for (int attempt = 1; attempt <= SPAWN_ATTEMPTS; attempt++) {
+            try {
+                return spawn(server, command, id, generations);
+            } catch (IOException e) {
+                logger.warn("Unable to start server generation " + id + " (attempt " + attempt + " of " + SPAWN_ATTEMPTS + "): " + e.getMessage());
+                if (attempt < SPAWN_ATTEMPTS) Thread.sleep(SPAWN_RETRY_DELAY * attempt);
+            }
+        }
+        return null;
+    }
+
+    private static Generation spawn(ServerSocket server, List<String> command, int id, List<Generation> generations) throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectInput(ProcessBuilder.Redirect.PIPE)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        Generation generation = new Generation(id, process);
+        generations.add(generation);
+        server.setSoTimeout(1000);
+        try {
+            while (generation.socket == null) {
+                try {
+                    Socket socket = server.accept();
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    if ("ready".equals(reader.readLine())) {
+                        generation.socket = socket;
+                    } else {
+                        socket.close();
+                    }
+                } catch (SocketTimeoutException e) {
+                    if (!process.isAlive()) throw new IOException("Server generation " + id + " exited before it was ready (exit code " + process.exitValue() + ")");
+                }
+            }
+        } catch (IOException e) {
+            process.destroy();
+            generations.remove(generation);
+            throw e;
+        }
+        return generation;
+    }
+
+    private static void startConsole() {
+        // Only the running generation reads the console, spares never see it
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            try {
+                int read;
+                while ((read = System.in.read(buffer)) != -1) {
+                    Generation generation = current;
+                    if (generation == null) continue;
+                    try {
+                        OutputStream input = generation.process.getOutputStream();
+                        input.write(buffer, 0, read);
+                        input.flush();
+                    } catch (IOException ignored) {
+                    }
+                }
+            } catch (IOException ignored) {
+            }
+        }, "Launcher-Supervisor-Console");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static class Generation {
+
+        private final int id;
+        private final Process process;
+        private Socket socket;
+        private long started;
+
+        private Generation(int id, Process process) {
+            this.id = id;
+            this.process = process;
+        }
+
+        private void start() throws IOException {
+            if (!process.isAlive()) throw new IOException("Server generation " + id + " exited while it was parked");
+            started = System.currentTimeMillis();
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write("start\n");
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package systems.conduit.launcher.timing;
+
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.json.timing.JsonPhase;
+import systems.conduit.launcher.json.timing.JsonTimeline;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class LaunchTimeline {
+
+    // Only uses the JDK until the timeline is written, since phases start before gson is on the classpath
+    private static final long START = System.nanoTime();
+    private static final List<Phase> phases = new CopyOnWriteArrayList<>();
+    private static volatile Phase current;
+    // Phases that run next to the main one, credited with what their own thread does
+    private static final ThreadLocal<Phase> parallel = new ThreadLocal<>();
+    private static volatile boolean recordEvents = Constants.TIMELINE_JFR;
+
+    public static Phase start(String name) {
+        // Phases run one after another, anything still open ends where the next one starts
+        Phase previous = current;
+        if (previous != null) previous.close();
+        Phase phase = create(name);
+        current = phase;
+        return phase;
+    }
+
+    public static Phase startParallel(String name) {
+        // Leaves the main phase running, close it when the work on this thread is done
+        Phase phase = create(name);
+        parallel.set(phase);
+        return phase;
+    }
+
+    private static Phase create(String name) {
+        Phase phase;
+        try {
+            phase = new Phase(name, elapsed(), recordEvents);
+        } catch (LinkageError e) {
+            // Flight recorder is not available on this runtime
+            recordEvents = false;
+            phase = new Phase(name, elapsed(), false);
+        }
+        phases.add(phase);
+        return phase;
+    }
+
+    static void end(Phase phase) {
+        if (current == phase) current = null;
+        if (parallel.get() == phase) parallel.remove();
+    }
+
+    // Work done on other threads is credited to whichever phase is running on the main thread
+    private static Phase getPhase() {
+        Phase phase = parallel.get();
+        return phase != null ? phase : current;
+    }
+
+    public static void addBytes(long count) {
+        Phase phase = getPhase();
+        if (phase != null) phase.addBytes(count);
+    }
+
+    public static void addFiles(int count) {
+        Phase phase = getPhase();
+        if (phase != null) phase.addFiles(count);
+    }
+
+    public static void addCacheHits(int count) {
+        Phase phase = getPhase();
+        if (phase != null) phase.addCacheHits(count);
+    }
+
+    public static void addCacheMisses(int count) {
+        Phase phase = getPhase();
+        if (phase != null) phase.addCacheMisses(count);
+    }
+
+    public static List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    public static long elapsed() {
+        return (System.nanoTime() - START) / 1000000;
+    }
+
+    public static void write(Path path) throws IOException {
+        Phase phase = current;
+        if (phase != null) phase.close();
+        List<JsonPhase> entries = new ArrayList<>();
+        for (Phase entry : phases) {
+            entries.add(new JsonPhase(entry.getName(), entry.getStart(), entry.getDuration(), entry.getBytes(), entry.getFiles(), entry.getCacheHits(), entry.getCacheMisses()));
+        }
+        long total = elapsed();
+        // Time the JVM spent before our main method ran
+        long jvmStartup = Math.max(0, ManagementFactory.getRuntimeMXBean().getUptime() - total);
+        JsonTimeline timeline = new JsonTimeline(Constants.MINECRAFT_VERSION, System.currentTimeMillis(), jvmStartup, total, entries);
+        JsonFiles.writePretty(path, timeline);
+    }
+}
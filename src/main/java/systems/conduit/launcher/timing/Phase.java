@@ -0,0 +1,75 @@
+package systems.conduit.launcher.timing;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Phase implements AutoCloseable {
+
+    @Getter private final String name;
+    @Getter private final long start;
+    private final long startNanos = System.nanoTime();
+    private volatile long durationNanos = -1;
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger cacheMisses = new AtomicInteger();
+    // Kept as an Object so the JFR classes are only loaded when recording is enabled
+    private final Object event;
+
+    Phase(String name, long start, boolean recordEvent) {
+        this.name = name;
+        this.start = start;
+        this.event = recordEvent ? PhaseEvent.start() : null;
+    }
+
+    public void addBytes(long count) {
+        bytes.addAndGet(count);
+    }
+
+    public void addFiles(int count) {
+        files.addAndGet(count);
+    }
+
+    public void addCacheHits(int count) {
+        cacheHits.addAndGet(count);
+    }
+
+    public void addCacheMisses(int count) {
+        cacheMisses.addAndGet(count);
+    }
+
+    public long getDuration() {
+        long duration = durationNanos;
+        return (duration >= 0 ? duration : System.nanoTime() - startNanos) / 1000000;
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getFiles() {
+        return files.get();
+    }
+
+    public int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public boolean isClosed() {
+        return durationNanos >= 0;
+    }
+
+    @Override
+    public void close() {
+        if (isClosed()) return;
+        durationNanos = System.nanoTime() - startNanos;
+        if (event != null) PhaseEvent.finish(event, this);
+        LaunchTimeline.end(this);
+    }
+}
@@ -0,0 +1,34 @@
+package systems.conduit.launcher.timing;
+
+import jdk.jfr.*;
+
+@Name("systems.conduit.launcher.Phase")
+@Label("Launcher Phase")
+@Category("Conduit")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+    @Label("Name") String name;
+    @Label("Bytes") @DataAmount long bytes;
+    @Label("Files") int files;
+    @Label("Cache Hits") int cacheHits;
+    @Label("Cache Misses") int cacheMisses;
+
+    static Object start() {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    static void finish(Object started, Phase phase) {
+        PhaseEvent event = (PhaseEvent) started;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.name = phase.getName();
+        event.bytes = phase.getBytes();
+        event.files = phase.getFiles();
+        event.cacheHits = phase.getCacheHits();
+        event.cacheMisses = phase.getCacheMisses();
+        event.commit();
+    }
+}
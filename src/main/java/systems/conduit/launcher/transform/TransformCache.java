@@ -0,0 +1,213 @@
+package systems.conduit.launcher.transform;
+
+import lombok.Getter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import systems.conduit.launcher.Constants;
+import systems.conduit.launcher.MainStart;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.FileDownloader;
+import systems.conduit.launcher.io.JsonFiles;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.json.cache.JsonHashedFile;
+import systems.conduit.launcher.json.cache.JsonTransformIndex;
+import systems.conduit.launcher.mixin.MixinTargets;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TransformCache {
+
+    // Bump when the way classes are cached changes so old entries are ignored
+    public static final String VERSION = "1";
+
+    // Where mixin writes every class it transformed when export is enabled, it has no setting to move it
+    private static final Path EXPORT_PATH = Paths.get(".mixin.out", "class");
+
+    @Getter private static Mode mode = Mode.DISABLED;
+    private static JsonTransformIndex index;
+    private static List<Path> paths = Collections.emptyList();
+    private static Path indexPath;
+    private static Path classesPath;
+    private static Path exportPath;
+    private static volatile Thread thread;
+
+    public static Mode prepare(List<Path> transformationPaths, List<String> mixins, Map<String, List<String>> targets, List<File> classpath) throws IOException {
+        return prepare(Constants.TRANSFORM_CACHE_PATH, EXPORT_PATH, transformationPaths, mixins, targets, classpath);
+    }
+
+    static Mode prepare(Path cachePath, Path export, List<Path> transformationPaths, List<String> mixins, Map<String, List<String>> targets, List<File> classpath) throws IOException {
+        if (!Constants.TRANSFORM_CACHE || mixins.isEmpty()) return mode = Mode.DISABLED;
+        // A config without known targets, like one with a plugin, may touch any class
+        List<String> unknownConfigs = mixins.stream().filter(config -> targets.get(config) == null).sorted().collect(Collectors.toList());
+        Set<String> allTargets = new TreeSet<>();
+        mixins.stream().map(targets::get).filter(Objects::nonNull).forEach(allTargets::addAll);
+        indexPath = cachePath.resolve("index.json");
+        classesPath = cachePath.resolve("classes");
+        exportPath = export;
+        paths = new ArrayList<>(transformationPaths);
+        JsonTransformIndex cached = readIndex();
+        Map<String, JsonHashedFile> previous = new HashMap<>();
+        if (cached != null) cached.getInputs().forEach(input -> previous.put(input.getPath(), input));
+        // Keyed by the exact server and mixin jars, the configs and the mixin version on the class path
+        List<JsonHashedFile> inputs = new ArrayList<>();
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        for (Path path : paths) {
+            JsonHashedFile input = hash(path.toFile(), previous.get(path.toString()));
+            inputs.add(input);
+            digest.update((input.getSha1() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((String.join(",", mixins) + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update((String.join(",", unknownConfigs) + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update((classpath.stream().map(File::getName).collect(Collectors.joining(",")) + "\n" + VERSION).getBytes(StandardCharsets.UTF_8));
+        String key = Checksum.toHex(digest.digest());
+        if (!unknownConfigs.isEmpty()) {
+            // Served classes skip mixin entirely, so these configs could never be applied to what they change
+            LogManager.getLogger(Constants.LOGGER_NAME).info("Transform cache off, targets unknown for: " + unknownConfigs);
+            return mode = Mode.DISABLED;
+        }
+        if (cached != null && key.equals(cached.getKey()) && cached.getUnknownConfigs().isEmpty() && cached.getClasses().keySet().containsAll(cached.getTargets())) {
+            index = new JsonTransformIndex(key, inputs, cached.getUnknownConfigs(), cached.getTargets(), cached.getClasses(), cached.isVerified());
+            // Only served once a second fresh transform came out the same, so a cache that can't be reproduced is never used
+            mode = !cached.isVerified() || Constants.TRANSFORM_CACHE_VERIFY ? Mode.VERIFY : Mode.SERVE;
+        } else {
+            index = new JsonTransformIndex(key, inputs, unknownConfigs, new ArrayList<>(allTargets), new TreeMap<>(), false);
+            mode = Mode.POPULATE;
+            deleteTree(classesPath);
+        }
+        if (mode != Mode.SERVE) {
+            // Let mixin write out what it produces so it can be cached or checked
+            deleteTree(exportPath);
+            System.setProperty("mixin.debug.export", "true");
+            System.setProperty("mixin.debug.export.decompile", "false");
+        }
+        return mode;
+    }
+
+    public static Optional<URL> locate(String name) {
+        String path = name.endsWith(".class") ? name : name.replace('.', '/') + ".class";
+        if (mode != Mode.SERVE || !index.getClasses().containsKey(path.substring(0, path.length() - 6))) return Optional.empty();
+        try {
+            return Optional.of(classesPath.resolve(path).toUri().toURL());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static void start(ClassLoader classLoader) {
+        if (mode != Mode.POPULATE && mode != Mode.VERIFY) return;
+        // Loading every target takes a while and main may only return once the server stops, so run next to the server
+        Thread started = new Thread(() -> finish(classLoader), "Launcher-Transform-Cache");
+        started.setDaemon(true);
+        started.setPriority(Thread.MIN_PRIORITY);
+        thread = started;
+        started.start();
+    }
+
+    public static boolean isCacheThread() {
+        return thread == Thread.currentThread();
+    }
+
+    static void finish(ClassLoader classLoader) {
+        if (mode != Mode.POPULATE && mode != Mode.VERIFY) return;
+        Logger logger = LogManager.getLogger(Constants.LOGGER_NAME);
+        // Classes the server has not needed yet are loaded now, without running their initializers
+        for (String target : index.getTargets()) {
+            try {
+                Class.forName(target.replace('/', '.'), false, classLoader);
+            } catch (Throwable ignored) {
+            }
+        }
+        try {
+            Map<String, Path> exported = readExport();
+            if (mode == Mode.POPULATE) {
+                populate(exported);
+                logger.info("Transform cache populated with " + exported.size() + " classes");
+            } else {
+                List<String> mismatches = verify(exported);
+                if (mismatches.isEmpty()) {
+                    index = new JsonTransformIndex(index.getKey(), index.getInputs(), index.getUnknownConfigs(), index.getTargets(), index.getClasses(), true);
+                    writeIndex(index);
+                    logger.info("Transform cache verified " + exported.size() + " classes");
+                } else {
+                    // A cache we can't trust is worse than none, the next start builds it again
+                    logger.warn("Transform cache differs for " + mismatches.size() + " classes, invalidating: " + mismatches.stream().limit(10).collect(Collectors.toList()));
+                    Files.deleteIfExists(indexPath);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to update transform cache");
+            e.printStackTrace();
+        } finally {
+            JarFiles.release();
+        }
+    }
+
+    private static void populate(Map<String, Path> exported) throws IOException {
+        Map<String, String> classes = index.getClasses();
+        for (Map.Entry<String, Path> entry : exported.entrySet()) {
+            Path target = classesPath.resolve(entry.getKey() + ".class");
+            Files.createDirectories(target.getParent());
+            Files.copy(entry.getValue(), target, StandardCopyOption.REPLACE_EXISTING);
+            byte[] original = MixinTargets.readEntry(paths, entry.getKey() + ".class");
+            classes.put(entry.getKey(), original != null ? Checksum.toHex(Checksum.createDigest("SHA-1").digest(original)) : "");
+        }
+        writeIndex(index);
+    }
+
+    private static List<String> verify(Map<String, Path> exported) throws IOException {
+        List<String> mismatches = new ArrayList<>();
+        for (String name : index.getClasses().keySet()) {
+            Path fresh = exported.get(name);
+            // Anything mixin did not produce this time was never loaded, so there is nothing to compare
+            if (fresh == null) continue;
+            Path cached = classesPath.resolve(name + ".class");
+            if (!Files.isRegularFile(cached) || !Arrays.equals(Files.readAllBytes(cached), Files.readAllBytes(fresh))) mismatches.add(name);
+        }
+        for (String name : exported.keySet()) {
+            if (!index.getClasses().containsKey(name)) mismatches.add(name);
+        }
+        return mismatches;
+    }
+
+    private static Map<String, Path> readExport() throws IOException {
+        Map<String, Path> exported = new TreeMap<>();
+        if (!Files.isDirectory(exportPath)) return exported;
+        try (Stream<Path> stream = Files.walk(exportPath)) {
+            for (Path path : stream.filter(file -> file.toString().endsWith(".class")).collect(Collectors.toList())) {
+                String name = exportPath.relativize(path).toString().replace(File.separatorChar, '/');
+                exported.put(name.substring(0, name.length() - 6), path);
+            }
+        }
+        return exported;
+    }
+
+    private static JsonHashedFile hash(File file, JsonHashedFile previous) throws IOException {
+        // Only read the whole jar again when it looks different
+        if (previous != null && previous.isUpToDate(file.length(), file.lastModified())) return previous;
+        return new JsonHashedFile(file.getPath(), file.length(), file.lastModified(), FileDownloader.hash(file, "SHA-1").getValue());
+    }
+
+    private static JsonTransformIndex readIndex() {
+        return JsonFiles.read(indexPath, JsonTransformIndex.class);
+    }
+
+    private static void writeIndex(JsonTransformIndex index) throws IOException {
+        JsonFiles.write(indexPath, index);
+    }
+
+    private static void deleteTree(Path path) {
+        if (Files.exists(path)) MainStart.deleteFolder(path.toFile());
+    }
+
+    public enum Mode {
+        DISABLED, POPULATE, VERIFY, SERVE
+    }
+}
@@ -0,0 +1,35 @@
+package systems.conduit.launcher.cds;
+
+import org.junit.Test;
+import systems.conduit.launcher.MainStart;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClassDataSharingTest {
+
+    @Test
+    public void trainChildRecordsLoadOrder() throws IOException {
+        List<String> command = ClassDataSharing.getCommand(ClassDataSharing.getTrainOptions(), Collections.emptyList(), Collections.singletonList("nogui"), false);
+        int record = command.lastIndexOf("-Dlauncher.packRecord=true");
+        int classpath = command.indexOf("-cp");
+        // JVM options only count before the main class, and a later definition would win
+        assertTrue(record != -1);
+        assertTrue(record < classpath);
+        assertEquals(MainStart.class.getName(), command.get(classpath + 2));
+        assertTrue(command.subList(record + 1, command.size()).stream().noneMatch(argument -> argument.startsWith("-Dlauncher.packRecord=")));
+        assertTrue(command.contains("-Dlauncher.cdsChild=true"));
+        assertTrue(command.stream().noneMatch(argument -> argument.startsWith("-javaagent:")));
+    }
+
+    @Test
+    public void relaunchedChildDoesNotRecord() throws IOException {
+        List<String> command = ClassDataSharing.getCommand(Collections.singletonList("-XX:SharedArchiveFile=launcher.jsa"), Collections.singletonList(new File("library.jar")), Collections.emptyList(), true);
+        assertFalse(command.contains("-Dlauncher.packRecord=true"));
+        assertTrue(command.get(command.indexOf("-cp") + 1).endsWith(File.pathSeparator + new File("library.jar").getAbsolutePath()));
+    }
+}
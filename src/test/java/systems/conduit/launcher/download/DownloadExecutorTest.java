@@ -0,0 +1,100 @@
+package systems.conduit.launcher.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class DownloadExecutorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        port = server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    public void busyHostDoesNotHoldUpOthers() throws Exception {
+        try (DownloadExecutor executor = new DownloadExecutor(2, 1)) {
+            // Both threads would be taken by the first host if its downloads waited for a connection inside them
+            List<Future<File>> slow = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                slow.add(executor.submit(new URL("http://127.0.0.1:" + port + "/slow/" + i), folder.newFile(), null));
+            }
+            Future<File> fast = executor.submit(new URL("http://localhost:" + port + "/fast"), folder.newFile(), null);
+            assertNotNull(fast.get(10, TimeUnit.SECONDS));
+            assertFalse(slow.get(2).isDone());
+            release.countDown();
+            for (Future<File> future : slow) {
+                assertNotNull(future.get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void missingFilesFailTheirFuture() throws Exception {
+        try (DownloadExecutor executor = new DownloadExecutor(2, 1)) {
+            Future<File> missing = executor.submitWithSidecar("http://127.0.0.1:" + port + "/", false, "missing.jar", folder.newFile());
+            try {
+                missing.get(10, TimeUnit.SECONDS);
+                fail("A missing file was downloaded");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof FileNotFoundException);
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.startsWith("/slow/")) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (!path.equals("/fast")) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = path.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
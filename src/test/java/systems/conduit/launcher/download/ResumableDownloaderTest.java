@@ -0,0 +1,149 @@
+package systems.conduit.launcher.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ResumableDownloaderTest {
+
+    // Big enough to be split into four segments
+    private static final int SIZE = 17 * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] content = new byte[SIZE];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger drops = new AtomicInteger();
+    private HttpServer server;
+    private URL url;
+    private boolean rangesSupported = true;
+
+    @Before
+    public void setUp() throws IOException {
+        new Random(1).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/server.jar", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/server.jar");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void downloadsInSegments() throws IOException {
+        File target = new File(folder.getRoot(), "server.jar");
+        ResumableDownloader.download(url, target, sha1(content), SIZE, 4, 3, 5000);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(4, ranges.size());
+        assertFalse(FileDownloader.getPartPath(target.toPath()).toFile().exists());
+    }
+
+    @Test
+    public void resumesDroppedConnections() throws IOException {
+        // Every response is cut off after a megabyte, so only resuming gets the whole file
+        drops.set(Integer.MAX_VALUE);
+        File target = new File(folder.getRoot(), "server.jar");
+        ResumableDownloader.download(url, target, sha1(content), SIZE, 1, 1, 5000);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertTrue(ranges.size() > 1);
+        assertTrue(ranges.stream().anyMatch(range -> !range.startsWith("bytes=0-")));
+    }
+
+    @Test
+    public void resumesDroppedSegments() throws IOException {
+        drops.set(4);
+        File target = new File(folder.getRoot(), "server.jar");
+        ResumableDownloader.download(url, target, sha1(content), SIZE, 4, 1, 5000);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void continuesPartFileFromPreviousRun() throws IOException {
+        File target = new File(folder.getRoot(), "server.jar");
+        byte[] previous = new byte[1000];
+        System.arraycopy(content, 0, previous, 0, previous.length);
+        Files.write(FileDownloader.getPartPath(target.toPath()), previous);
+        ResumableDownloader.download(url, target, sha1(content), SIZE, 4, 3, 5000);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(1, ranges.size());
+        assertTrue(ranges.get(0).startsWith("bytes=1000-"));
+    }
+
+    @Test
+    public void fallsBackToOneStreamWithoutRanges() throws IOException {
+        rangesSupported = false;
+        File target = new File(folder.getRoot(), "server.jar");
+        ResumableDownloader.download(url, target, sha1(content), SIZE, 4, 3, 5000);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        for (int i = 0; i < 4; i++) {
+            assertFalse(new File(folder.getRoot(), "server.jar.part." + i).exists());
+        }
+    }
+
+    @Test
+    public void rejectsChecksumMismatch() throws IOException {
+        File target = new File(folder.getRoot(), "server.jar");
+        try {
+            ResumableDownloader.download(url, target, sha1(new byte[1]), SIZE, 4, 3, 5000);
+            fail("Expected a checksum mismatch");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Checksum mismatch"));
+        }
+        assertFalse(target.exists());
+        assertFalse(FileDownloader.getPartPath(target.toPath()).toFile().exists());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        int start = 0;
+        int end = SIZE - 1;
+        if (range != null && rangesSupported) {
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) end = Math.min(end, Integer.parseInt(bounds[1]));
+        }
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(range != null && rangesSupported ? 206 : 200, length);
+        OutputStream outputStream = exchange.getResponseBody();
+        if (drops.getAndDecrement() > 0 && length > 1024 * 1024) {
+            // Claims the whole range but hangs up part way through
+            outputStream.write(content, start, 1024 * 1024);
+            outputStream.flush();
+            exchange.close();
+            return;
+        }
+        outputStream.write(content, start, length);
+        outputStream.close();
+    }
+
+    private static Checksum sha1(byte[] bytes) {
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        return new Checksum("SHA-1", Checksum.toHex(digest.digest(bytes)));
+    }
+}
@@ -0,0 +1,31 @@
+package systems.conduit.launcher.remap;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ClassHierarchyTest {
+
+    @Test
+    public void collectsSuperclassesAndInterfaces() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.add("a", "java/lang/Object", null);
+        hierarchy.add("b", "java/lang/Object", new String[] {"a"});
+        hierarchy.add("c", "b", new String[] {"d"});
+        hierarchy.add("d", null, new String[] {"a"});
+        assertArrayEquals(new String[] {"b", "d"}, hierarchy.getParents("c"));
+        // Breadth first and without repeats, a is reached through both b and d
+        assertEquals(Arrays.asList("b", "d", "java/lang/Object", "a"), Arrays.asList(hierarchy.getAncestors("c").toArray()));
+    }
+
+    @Test
+    public void unknownClassesHaveNoAncestors() {
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        hierarchy.add("a", "java/util/ArrayList", null);
+        assertEquals(0, hierarchy.getParents("java/util/ArrayList").length);
+        assertEquals(Collections.singleton("java/util/ArrayList"), hierarchy.getAncestors("a"));
+    }
+}
@@ -0,0 +1,191 @@
+package systems.conduit.launcher.remap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+import systems.conduit.launcher.fixtures.Fixtures;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.*;
+
+public class JarRemapperTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File input;
+    private Mappings mappings;
+
+    @Before
+    public void setUp() throws IOException {
+        input = folder.newFile("server.jar");
+        Map<String, byte[]> entries = new LinkedHashMap<>(Fixtures.createRemapClasses());
+        entries.put("data/version.txt", "1".getBytes(StandardCharsets.UTF_8));
+        Fixtures.writeJar(input, entries);
+        File mappingsFile = folder.newFile("server.txt");
+        Fixtures.writeRemapMappings(mappingsFile);
+        mappings = Mappings.readProGuard(mappingsFile);
+    }
+
+    @Test
+    public void renamesClassesAndKeepsResources() throws IOException {
+        Map<String, byte[]> output = remap(null, 2);
+        assertEquals(new HashSet<>(Arrays.asList("net/minecraft/Handler.class", "net/minecraft/Entity.class", "net/minecraft/Entity$Builder.class",
+                "net/minecraft/Zombie.class", "net/minecraft/Handlers.class", "e.class", "data/version.txt")), output.keySet());
+        assertEquals("1", new String(output.get("data/version.txt"), StandardCharsets.UTF_8));
+        ClassNode unmapped = read(output, "e");
+        assertEquals("Lnet/minecraft/Entity;", field(unmapped, "a").desc);
+    }
+
+    @Test
+    public void remapsFieldAndMethodDescriptors() throws IOException {
+        ClassNode entity = read(remap(null, 2), "net/minecraft/Entity");
+        assertEquals("I", field(entity, "id").desc);
+        assertEquals("Lnet/minecraft/Entity;", field(entity, "parent").desc);
+        MethodNode getParent = method(entity, "getParent");
+        assertEquals("()Lnet/minecraft/Entity;", getParent.desc);
+        FieldInsnNode parent = instruction(getParent, FieldInsnNode.class);
+        assertEquals("net/minecraft/Entity", parent.owner);
+        assertEquals("parent", parent.name);
+        assertEquals("Lnet/minecraft/Entity;", parent.desc);
+        assertEquals("handle", method(read(remap(null, 2), "net/minecraft/Handler"), "handle").name);
+    }
+
+    @Test
+    public void remapsInheritedAndInterfaceMembers() throws IOException {
+        ClassNode zombie = read(remap(null, 2), "net/minecraft/Zombie");
+        assertEquals("net/minecraft/Entity", zombie.superName);
+        assertEquals(Collections.singletonList("net/minecraft/Handler"), zombie.interfaces);
+        // Zombie has no mappings of its own, the names come from Handler and Entity
+        MethodNode handle = method(zombie, "handle");
+        assertEquals("(Lnet/minecraft/Entity;)V", handle.desc);
+        MethodInsnNode getParent = instruction(handle, MethodInsnNode.class);
+        assertEquals("net/minecraft/Zombie", getParent.owner);
+        assertEquals("getParent", getParent.name);
+        assertEquals("()Lnet/minecraft/Entity;", getParent.desc);
+        FieldInsnNode id = instruction(handle, FieldInsnNode.class);
+        assertEquals("net/minecraft/Zombie", id.owner);
+        assertEquals("id", id.name);
+        MethodInsnNode constructor = instruction(method(zombie, "<init>"), MethodInsnNode.class);
+        assertEquals("net/minecraft/Entity", constructor.owner);
+        assertEquals("<init>", constructor.name);
+    }
+
+    @Test
+    public void remapsInnerClasses() throws IOException {
+        Map<String, byte[]> output = remap(null, 2);
+        ClassNode builder = read(output, "net/minecraft/Entity$Builder");
+        assertEquals("Lnet/minecraft/Entity;", field(builder, "entity").desc);
+        assertEquals("()Lnet/minecraft/Entity;", method(builder, "build").desc);
+        for (ClassNode classNode : Arrays.asList(builder, read(output, "net/minecraft/Entity"))) {
+            assertEquals(1, classNode.innerClasses.size());
+            InnerClassNode inner = classNode.innerClasses.get(0);
+            assertEquals("net/minecraft/Entity$Builder", inner.name);
+            assertEquals("net/minecraft/Entity", inner.outerName);
+            assertEquals("Builder", inner.innerName);
+        }
+    }
+
+    @Test
+    public void remapsLambdas() throws IOException {
+        ClassNode handlers = read(remap(null, 2), "net/minecraft/Handlers");
+        // A lambda is named after the interface method it implements
+        InvokeDynamicInsnNode handler = instruction(method(handlers, "create"), InvokeDynamicInsnNode.class);
+        assertEquals("handle", handler.name);
+        assertEquals("()Lnet/minecraft/Handler;", handler.desc);
+        assertEquals(Type.getType("(Lnet/minecraft/Entity;)V"), handler.bsmArgs[0]);
+        Handle implementation = (Handle) handler.bsmArgs[1];
+        assertEquals("net/minecraft/Handlers", implementation.getOwner());
+        assertEquals("lambda$a$0", implementation.getName());
+        assertEquals("(Lnet/minecraft/Entity;)V", implementation.getDesc());
+        assertEquals(Type.getType("(Lnet/minecraft/Entity;)V"), handler.bsmArgs[2]);
+        // Library interfaces keep their names
+        InvokeDynamicInsnNode runnable = instruction(method(handlers, "runnable"), InvokeDynamicInsnNode.class);
+        assertEquals("run", runnable.name);
+        assertEquals("(Lnet/minecraft/Entity;)Ljava/lang/Runnable;", runnable.desc);
+        assertEquals("(Lnet/minecraft/Entity;)V", ((Handle) runnable.bsmArgs[1]).getDesc());
+        MethodInsnNode getParent = instruction(method(handlers, "lambda$b$1"), MethodInsnNode.class);
+        assertEquals("getParent", getParent.name);
+    }
+
+    @Test
+    public void cachedAndParallelRemapsMatch() throws IOException {
+        Map<String, byte[]> expected = remap(null, 1);
+        RemapCache cache = new RemapCache(folder.newFolder("cache").toPath());
+        JarRemapper cold = new JarRemapper(mappings, cache, 4);
+        Map<String, byte[]> coldOutput = remap(cold);
+        assertEquals(6, cold.getCacheMisses());
+        JarRemapper warm = new JarRemapper(mappings, cache, 4);
+        Map<String, byte[]> warmOutput = remap(warm);
+        assertEquals(6, warm.getCacheHits());
+        assertEquals(0, warm.getCacheMisses());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), coldOutput.get(entry.getKey()));
+            assertArrayEquals(entry.getKey(), entry.getValue(), warmOutput.get(entry.getKey()));
+        }
+    }
+
+    private Map<String, byte[]> remap(RemapCache cache, int threads) throws IOException {
+        return remap(new JarRemapper(mappings, cache, threads));
+    }
+
+    private Map<String, byte[]> remap(JarRemapper remapper) throws IOException {
+        File output = new File(folder.getRoot(), "server-mapped.jar");
+        remapper.remap(input, output);
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (JarFile jarFile = new JarFile(output)) {
+            for (ZipEntry entry : Collections.list(jarFile.entries())) {
+                entries.put(entry.getName(), readAll(jarFile, entry));
+            }
+        }
+        Files.delete(output.toPath());
+        return entries;
+    }
+
+    private static byte[] readAll(JarFile jarFile, ZipEntry entry) throws IOException {
+        byte[] bytes = new byte[(int) entry.getSize()];
+        try (DataInputStream inputStream = new DataInputStream(jarFile.getInputStream(entry))) {
+            inputStream.readFully(bytes);
+        }
+        return bytes;
+    }
+
+    private static ClassNode read(Map<String, byte[]> output, String name) {
+        byte[] bytes = output.get(name + ".class");
+        assertNotNull(name, bytes);
+        ClassNode classNode = new ClassNode();
+        new ClassReader(bytes).accept(classNode, 0);
+        assertEquals(name, classNode.name);
+        return classNode;
+    }
+
+    private static FieldNode field(ClassNode classNode, String name) {
+        return classNode.fields.stream().filter(field -> field.name.equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No field " + name + " in " + classNode.name));
+    }
+
+    private static MethodNode method(ClassNode classNode, String name) {
+        return classNode.methods.stream().filter(method -> method.name.equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No method " + name + " in " + classNode.name));
+    }
+
+    private static <T extends AbstractInsnNode> T instruction(MethodNode method, Class<T> type) {
+        for (AbstractInsnNode instruction : method.instructions.toArray()) {
+            if (type.isInstance(instruction)) return type.cast(instruction);
+        }
+        throw new AssertionError("No " + type.getSimpleName() + " in " + method.name);
+    }
+}
@@ -0,0 +1,136 @@
+package systems.conduit.launcher.remap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.fixtures.Fixtures;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MappingCacheTest {
+
+    // Magic, format, payload length and the payload digest
+    private static final int HEADER_LENGTH = 32;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Checksum checksum = Checksum.sha1("0123456789abcdef0123456789abcdef01234567");
+    private MappingCache cache;
+    private Mappings mappings;
+    private Path path;
+    private byte[] saved;
+
+    @Before
+    public void setUp() throws IOException {
+        File mappingsFile = folder.newFile("server.txt");
+        Fixtures.writeMappings(mappingsFile, 20, 3, 4);
+        mappings = Mappings.readProGuard(mappingsFile);
+        cache = new MappingCache(folder.getRoot().toPath().resolve("mappings"));
+        cache.save(checksum, mappings);
+        path = folder.getRoot().toPath().resolve("mappings").resolve(checksum.getValue() + ".bin");
+        saved = Files.readAllBytes(path);
+    }
+
+    @Test
+    public void roundTrips() {
+        Mappings loaded = cache.load(checksum);
+        assertNotNull(loaded);
+        assertEquals(mappings.getClassCount(), loaded.getClassCount());
+        for (int i = 0; i < 20; i++) {
+            String name = Fixtures.OBFUSCATED_PREFIX + i;
+            assertEquals(mappings.getClass(name), loaded.getClass(name));
+            assertEquals(mappings.getField(name, "f0", "I"), loaded.getField(name, "f0", "I"));
+            assertArrayEquals(mappings.getClassHash(name), loaded.getClassHash(name));
+        }
+    }
+
+    @Test
+    public void damagedPayloadIsAMiss() throws IOException {
+        byte[] bytes = saved.clone();
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+        assertNull(cache.load(checksum));
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    public void truncatedFileIsAMiss() throws IOException {
+        Files.write(path, Arrays.copyOf(saved, saved.length - 100));
+        assertNull(cache.load(checksum));
+        Files.write(path, Arrays.copyOf(saved, 10));
+        assertNull(cache.load(checksum));
+    }
+
+    @Test
+    public void rejectsHugeLengths() throws IOException {
+        // Would ask for a negative or enormous array if the lengths were trusted
+        byte[] payload = payload();
+        ByteBuffer.wrap(payload).putInt(0, Integer.MIN_VALUE);
+        assertRejected(payload, "string count");
+        payload = payload();
+        ByteBuffer.wrap(payload).putInt(findTables(payload), Integer.MAX_VALUE);
+        assertRejected(payload, "table length");
+    }
+
+    @Test
+    public void rejectsIndicesOutsideTheTables() throws IOException {
+        // A correct digest over nonsense, the tables are checked before they are used
+        byte[] payload = payload();
+        int tables = findTables(payload);
+        ByteBuffer.wrap(payload).putInt(tables + 4, 1 << 20);
+        assertRejected(payload, "string id");
+        payload = payload();
+        int classCount = ByteBuffer.wrap(payload).getInt(tables);
+        int fieldStart = tables + (1 + classCount) * 4 * 2;
+        ByteBuffer.wrap(payload).putInt(fieldStart + 4 + 4, 1 << 20);
+        assertRejected(payload, "member range");
+    }
+
+    private void assertRejected(byte[] payload, String reason) throws IOException {
+        File file = writeWithDigest(payload);
+        try {
+            Mappings.read(file);
+            fail("Expected a corrupt cache");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(reason));
+        }
+        assertNull(cache.load(checksum));
+    }
+
+    private byte[] payload() {
+        return Arrays.copyOfRange(saved, HEADER_LENGTH, saved.length);
+    }
+
+    private File writeWithDigest(byte[] payload) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        bytes.put(saved, 0, 8);
+        bytes.putInt(payload.length);
+        MessageDigest digest = Checksum.createDigest("SHA-1");
+        bytes.put(digest.digest(payload));
+        bytes.put(payload);
+        Files.write(path, bytes.array());
+        return path.toFile();
+    }
+
+    private static int findTables(byte[] payload) {
+        // Skips the string pool, each entry is a two byte length and the modified UTF-8 bytes
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        int strings = buffer.getInt();
+        for (int i = 0; i < strings; i++) {
+            int length = buffer.getShort() & 0xFFFF;
+            buffer.position(buffer.position() + length);
+        }
+        return buffer.position();
+    }
+}
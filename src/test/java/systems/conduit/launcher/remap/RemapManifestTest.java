@@ -0,0 +1,67 @@
+package systems.conduit.launcher.remap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import systems.conduit.launcher.fixtures.Fixtures;
+import systems.conduit.launcher.jar.JarFiles;
+import systems.conduit.launcher.json.cache.JsonRemapManifest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RemapManifestTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private Path jar;
+    private JsonRemapManifest manifest;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("server-remapped.jar");
+        jar = file.toPath();
+        Fixtures.writeJar(file, entries("two"));
+        manifest = RemapManifest.write(jar, "server", "mappings", Collections.emptyList());
+    }
+
+    @Test
+    public void acceptsAnUntouchedJar() {
+        assertEquals(RemapManifest.Status.VALID, RemapManifest.verify(jar, true));
+    }
+
+    @Test
+    public void namesTheChangedEntry() throws IOException {
+        Fixtures.writeJar(file, entries("owt"));
+        JarFiles.release();
+        assertEquals(RemapManifest.Status.CORRUPT, RemapManifest.verify(jar, true));
+        assertEquals("changed entry b.txt", RemapManifest.findDamage(jar, manifest.getEntries()));
+    }
+
+    @Test
+    public void namesTheMissingEntry() throws IOException {
+        Map<String, byte[]> entries = entries("two");
+        entries.remove("b.txt");
+        Fixtures.writeJar(file, entries);
+        JarFiles.release();
+        assertEquals(RemapManifest.Status.CORRUPT, RemapManifest.verify(jar, true));
+        assertEquals("missing entry b.txt", RemapManifest.findDamage(jar, manifest.getEntries()));
+    }
+
+    private static Map<String, byte[]> entries(String second) {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("a.txt", "one".getBytes(StandardCharsets.UTF_8));
+        entries.put("b.txt", second.getBytes(StandardCharsets.UTF_8));
+        return entries;
+    }
+}
@@ -0,0 +1,57 @@
+package systems.conduit.launcher.repository;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class MetadataCacheTest {
+
+    private static final byte[] CONTENT = "<metadata/>".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/maven-metadata.xml", exchange -> {
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(CONTENT);
+            }
+        });
+        server.start();
+        url = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/maven-metadata.xml");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void brokenInfoIsAMiss() throws IOException {
+        Path body = folder.getRoot().toPath().resolve("maven-metadata.xml");
+        Files.write(body, "stale".getBytes(StandardCharsets.UTF_8));
+        // Cut off while the timestamp was written
+        Files.write(folder.getRoot().toPath().resolve("maven-metadata.xml.properties"), "checked=16x".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(CONTENT, Files.readAllBytes(MetadataCache.fetch(url, body)));
+    }
+}
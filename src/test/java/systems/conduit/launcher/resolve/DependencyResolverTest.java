@@ -0,0 +1,209 @@
+package systems.conduit.launcher.resolve;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import systems.conduit.launcher.download.Checksum;
+import systems.conduit.launcher.download.DownloadExecutor;
+import systems.conduit.launcher.json.download.JsonLibraryInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class DependencyResolverTest {
+
+    private static final String GROUP = "systems.conduit.test";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // A local stand-in for the maven repository, paths to file contents
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer server;
+    private String repository;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        repository = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    public void picksHighestVersionAcrossTheTree() {
+        pom("app", "1.0", dependency("lib-a", "1.0") + dependency("lib-b", "1.0"));
+        pom("lib-a", "1.0", "");
+        pom("lib-a", "2.0", "");
+        pom("lib-b", "1.0", dependency("lib-a", "2.0"));
+        Resolution resolution = resolve(true);
+        assertEquals("2.0", getVersions(resolution).get(GROUP + ":lib-a"));
+        assertEquals("1.0", getVersions(resolution).get(GROUP + ":lib-b"));
+        assertTrue(resolution.getConflicts().contains(GROUP + ":lib-a: picked 2.0 over 1.0 (highest)"));
+    }
+
+    @Test
+    public void resolvesRangesToTheHighestVersionInside() {
+        pom("app", "1.0", dependency("open", "(1.0,2.0)") + dependency("below", "(,1.0)") + dependency("above", "[1.0,)") + dependency("union", "[1.0,2.0),[3.0,)"));
+        metadata("open", "1.0", "1.5", "1.9", "2.0");
+        metadata("below", "0.8", "0.9", "1.0");
+        metadata("above", "1.0", "1.1", "2.0-SNAPSHOT");
+        metadata("union", "1.0", "2.5", "3.1");
+        Map<String, String> versions = getVersions(resolve(true));
+        // Exclusive bounds are never picked, even though they exist
+        assertEquals("1.9", versions.get(GROUP + ":open"));
+        assertEquals("0.9", versions.get(GROUP + ":below"));
+        assertEquals("1.1", versions.get(GROUP + ":above"));
+        assertEquals("3.1", versions.get(GROUP + ":union"));
+    }
+
+    @Test
+    public void rangesWithoutVersionListUseInclusiveBounds() {
+        pom("app", "1.0", dependency("inclusive", "[1.0,2.0)") + dependency("exclusive", "(1.0,2.0)") + dependency("exact", "[1.2]"));
+        // Offline nothing is fetched, so only a bound inside the range can be used
+        Map<String, String> versions = getVersions(resolve(false));
+        assertEquals("1.0", versions.get(GROUP + ":inclusive"));
+        assertEquals("1.2", versions.get(GROUP + ":exact"));
+        assertFalse(versions.containsKey(GROUP + ":exclusive"));
+    }
+
+    @Test
+    public void importsManagedVersionsFromBoms() {
+        project("app", "1.0", "<dependencyManagement><dependencies>"
+                + dependency("local", "1.0")
+                + "<dependency><groupId>" + GROUP + "</groupId><artifactId>bom</artifactId><version>1.0</version><type>pom</type><scope>import</scope></dependency>"
+                + "<dependency><groupId>" + GROUP + "</groupId><artifactId>second-bom</artifactId><version>1.0</version><type>pom</type><scope>import</scope></dependency>"
+                + "</dependencies></dependencyManagement>"
+                + "<dependencies>" + managedDependency("local") + managedDependency("imported") + managedDependency("shared") + "</dependencies>");
+        project("bom", "1.0", "<dependencyManagement><dependencies>" + dependency("local", "9.0") + dependency("imported", "3.0") + dependency("shared", "1.0")
+                + "</dependencies></dependencyManagement>");
+        project("second-bom", "1.0", "<dependencyManagement><dependencies>" + dependency("shared", "2.0") + "</dependencies></dependencyManagement>");
+        Map<String, String> versions = getVersions(resolve(true));
+        // The pom's own management wins over a bom, and the first bom over the next
+        assertEquals("1.0", versions.get(GROUP + ":local"));
+        assertEquals("3.0", versions.get(GROUP + ":imported"));
+        assertEquals("1.0", versions.get(GROUP + ":shared"));
+        assertFalse(versions.containsKey(GROUP + ":bom"));
+    }
+
+    @Test
+    public void appliesParentsPropertiesAndExclusions() {
+        files.put(path("parent", "1.0") + "parent-1.0.pom", "<project><groupId>" + GROUP + "</groupId><artifactId>parent</artifactId><version>1.0</version>"
+                + "<properties><lib.version>4.0</lib.version></properties></project>");
+        project("app", "1.0", "<parent><groupId>" + GROUP + "</groupId><artifactId>parent</artifactId><version>1.0</version></parent><dependencies>"
+                + "<dependency><groupId>" + GROUP + "</groupId><artifactId>lib</artifactId><version>${lib.version}</version>"
+                + "<exclusions><exclusion><groupId>" + GROUP + "</groupId><artifactId>excluded</artifactId></exclusion></exclusions></dependency>"
+                + "<dependency><groupId>" + GROUP + "</groupId><artifactId>test-only</artifactId><version>1.0</version><scope>test</scope></dependency>"
+                + "</dependencies>");
+        pom("lib", "4.0", dependency("excluded", "1.0") + dependency("kept", "1.0"));
+        Map<String, String> versions = getVersions(resolve(true));
+        assertEquals("4.0", versions.get(GROUP + ":lib"));
+        assertEquals("1.0", versions.get(GROUP + ":kept"));
+        assertFalse(versions.containsKey(GROUP + ":excluded"));
+        assertFalse(versions.containsKey(GROUP + ":test-only"));
+    }
+
+    @Test
+    public void asksForMissingPomsAndMetadataOnce() {
+        pom("app", "1.0", dependency("jar-only", "1.0") + dependency("ranged", "[1.0,2.0)"));
+        metadata("ranged", "1.0", "1.1");
+        resolve(true);
+        // Known missing after the prefetch, so loading it doesn't ask again
+        assertEquals(1, Collections.frequency(requests, path("jar-only", "1.0") + "jar-only-1.0.pom"));
+        String metadata = GROUP.replace('.', '/') + "/ranged/maven-metadata.xml";
+        assertEquals(1, Collections.frequency(requests, metadata));
+        // Still fresh on the next start
+        assertEquals("1.1", getVersions(resolve(true)).get(GROUP + ":ranged"));
+        assertEquals(1, Collections.frequency(requests, metadata));
+    }
+
+    private Resolution resolve(boolean online) {
+        JsonLibraryInfo app = new JsonLibraryInfo("maven", GROUP, "app", "1.0", repository);
+        Map<String, List<JsonLibraryInfo>> batch = Collections.singletonMap("test libraries", Collections.singletonList(app));
+        // Artifacts the stand-in doesn't have must never be looked up in the real default repository
+        if (!online) return new DependencyResolver(folder.getRoot().toPath(), null, false).resolve(batch, new HashMap<>(), true);
+        try (DownloadExecutor executor = new DownloadExecutor(4, 2)) {
+            return new DependencyResolver(folder.getRoot().toPath(), executor, false).resolve(batch, new HashMap<>(), true);
+        }
+    }
+
+    private static Map<String, String> getVersions(Resolution resolution) {
+        Map<String, String> versions = new HashMap<>();
+        for (ResolvedLibrary library : resolution.getLibraries()) {
+            versions.put(library.getKey(), library.getLibrary().getVersion());
+        }
+        return versions;
+    }
+
+    private void pom(String artifactId, String version, String dependencies) {
+        project(artifactId, version, "<dependencies>" + dependencies + "</dependencies>");
+    }
+
+    private void project(String artifactId, String version, String body) {
+        files.put(path(artifactId, version) + artifactId + "-" + version + ".pom", "<project><groupId>" + GROUP + "</groupId><artifactId>" + artifactId
+                + "</artifactId><version>" + version + "</version>" + body + "</project>");
+    }
+
+    private void metadata(String artifactId, String... versions) {
+        StringBuilder metadata = new StringBuilder("<metadata><groupId>" + GROUP + "</groupId><artifactId>" + artifactId + "</artifactId><versioning><versions>");
+        for (String version : versions) {
+            metadata.append("<version>").append(version).append("</version>");
+            pom(artifactId, version, "");
+        }
+        files.put(GROUP.replace('.', '/') + "/" + artifactId + "/maven-metadata.xml", metadata.append("</versions></versioning></metadata>").toString());
+    }
+
+    private static String dependency(String artifactId, String version) {
+        return "<dependency><groupId>" + GROUP + "</groupId><artifactId>" + artifactId + "</artifactId><version>" + version + "</version></dependency>";
+    }
+
+    private static String managedDependency(String artifactId) {
+        return "<dependency><groupId>" + GROUP + "</groupId><artifactId>" + artifactId + "</artifactId></dependency>";
+    }
+
+    private static String path(String artifactId, String version) {
+        return DependencyResolver.getPath(GROUP, artifactId, version);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(1);
+        requests.add(path);
+        String content = files.get(path.endsWith(".sha1") ? path.substring(0, path.length() - 5) : path);
+        if (content == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        if (path.endsWith(".sha1")) {
+            MessageDigest digest = Checksum.createDigest("SHA-1");
+            body = Checksum.toHex(digest.digest(body)).getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
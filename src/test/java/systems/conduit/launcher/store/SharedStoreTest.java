@@ -0,0 +1,78 @@
+package systems.conduit.launcher.store;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import systems.conduit.launcher.download.Checksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SharedStoreTest {
+
+    private static final byte[] CONTENT = "library".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SharedStore store;
+    private Checksum checksum;
+    private Path object;
+    private final AtomicInteger provided = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        store = new SharedStore(folder.getRoot().toPath().resolve("store"));
+        checksum = Checksum.sha1(Checksum.toHex(Checksum.createDigest("SHA-1").digest(CONTENT)));
+        object = folder.getRoot().toPath().resolve("store").resolve("objects").resolve(checksum.getValue().substring(0, 2)).resolve(checksum.getValue());
+    }
+
+    @Test
+    public void linksStoredObjects() throws IOException {
+        provide(folder.newFile("first.jar"));
+        File second = folder.newFile("second.jar");
+        provide(second);
+        assertEquals(1, provided.get());
+        assertArrayEquals(CONTENT, Files.readAllBytes(second.toPath()));
+    }
+
+    @Test
+    public void replacesBrokenObjects() throws IOException {
+        provide(folder.newFile("first.jar"));
+        // A truncated object must not be linked again on every start
+        object.toFile().setWritable(true);
+        Files.write(object, new byte[3]);
+        File second = folder.newFile("second.jar");
+        provide(second);
+        assertEquals(2, provided.get());
+        assertArrayEquals(CONTENT, Files.readAllBytes(second.toPath()));
+        assertArrayEquals(CONTENT, Files.readAllBytes(object));
+    }
+
+    @Test
+    public void neverStoresWhatFailsItsCheck() throws IOException {
+        File target = folder.newFile("broken.jar");
+        try {
+            store.provide("remapped", target, file -> {
+                throw new IOException("Broken " + file);
+            }, () -> Files.write(target.toPath(), CONTENT));
+            fail("A broken file was stored");
+        } catch (IOException ignored) {
+        }
+        assertFalse(Files.exists(folder.getRoot().toPath().resolve("store").resolve("objects").resolve("re").resolve("remapped")));
+    }
+
+    private void provide(File target) throws IOException {
+        store.provide(checksum, target, () -> {
+            provided.incrementAndGet();
+            Files.write(target.toPath(), CONTENT);
+        });
+    }
+}
@@ -0,0 +1,189 @@
+package systems.conduit.launcher.transform;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.*;
+import systems.conduit.launcher.fixtures.Fixtures;
+import systems.conduit.launcher.mixin.MixinTargets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.*;
+
+public class TransformCacheTest {
+
+    private static final String TARGET = "net/minecraft/Counter";
+    private static final String CONFIG = "test.mixins.json";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File server;
+    private File mixins;
+    private Path cache;
+    private Path export;
+
+    @Before
+    public void setUp() throws IOException {
+        server = folder.newFile("server.jar");
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put(TARGET + ".class", Fixtures.createCounterClass(TARGET, 1));
+        classes.put("net/minecraft/Other.class", Fixtures.createCounterClass("net/minecraft/Other", 1));
+        Fixtures.writeJar(server, classes);
+        mixins = folder.newFile("mixins.jar");
+        writeMixins("{\"package\": \"test.mixin\", \"mixins\": [\"CounterMixin\"]}");
+        cache = folder.newFolder("cache").toPath();
+        export = folder.getRoot().toPath().resolve(".mixin.out").resolve("class");
+    }
+
+    @Test
+    public void servesWhatAFreshTransformProduces() throws IOException {
+        assertEquals(TransformCache.Mode.POPULATE, prepare());
+        MixinClassLoader first = transform(2);
+        // Nothing is served until a second transform agreed with the first
+        assertEquals(TransformCache.Mode.VERIFY, prepare());
+        transform(2);
+        assertEquals(TransformCache.Mode.SERVE, prepare());
+        URL served = TransformCache.locate("net.minecraft.Counter").orElseThrow(() -> new AssertionError("Counter is not served"));
+        assertArrayEquals(first.exported.get(TARGET), readAll(served));
+        assertTrue(TransformCache.locate(TARGET + ".class").isPresent());
+        // Classes no mixin targets still come from the jar
+        assertFalse(TransformCache.locate("net.minecraft.Other").isPresent());
+    }
+
+    @Test
+    public void differentTransformIsNeverServed() throws IOException {
+        assertEquals(TransformCache.Mode.POPULATE, prepare());
+        transform(2);
+        assertEquals(TransformCache.Mode.VERIFY, prepare());
+        transform(3);
+        assertEquals(TransformCache.Mode.POPULATE, prepare());
+        assertFalse(TransformCache.locate(TARGET).isPresent());
+    }
+
+    @Test
+    public void changedMixinsPopulateAgain() throws IOException {
+        assertEquals(TransformCache.Mode.POPULATE, prepare());
+        transform(2);
+        assertEquals(TransformCache.Mode.VERIFY, prepare());
+        transform(2);
+        assertEquals(TransformCache.Mode.SERVE, prepare());
+        writeMixins("{\"package\": \"test.mixin\", \"mixins\": [\"CounterMixin\"], \"priority\": 500}");
+        assertEquals(TransformCache.Mode.POPULATE, prepare());
+    }
+
+    @Test
+    public void configsWithUnknownTargetsAreNeverServed() throws IOException {
+        assertEquals(TransformCache.Mode.POPULATE, prepare());
+        transform(2);
+        assertEquals(TransformCache.Mode.VERIFY, prepare());
+        transform(2);
+        assertEquals(TransformCache.Mode.SERVE, prepare());
+        // Mixin is skipped for served classes, which a config with a plugin could still need
+        writeMixins("{\"package\": \"test.mixin\", \"plugin\": \"test.mixin.Plugin\", \"mixins\": [\"CounterMixin\"]}");
+        assertNull(MixinTargets.scan(Arrays.asList(server.toPath(), mixins.toPath()), CONFIG));
+        assertEquals(TransformCache.Mode.DISABLED, prepare(Collections.singletonMap(CONFIG, null)));
+        assertFalse(TransformCache.locate(TARGET).isPresent());
+        // Same when mixin selection failed and no targets are known at all
+        assertEquals(TransformCache.Mode.DISABLED, prepare(Collections.emptyMap()));
+    }
+
+    private TransformCache.Mode prepare() throws IOException {
+        return prepare(Collections.singletonMap(CONFIG, Collections.singletonList(TARGET)));
+    }
+
+    private TransformCache.Mode prepare(Map<String, List<String>> targets) throws IOException {
+        List<Path> paths = Arrays.asList(server.toPath(), mixins.toPath());
+        return TransformCache.prepare(cache, export, paths, Collections.singletonList(CONFIG), targets, Collections.emptyList());
+    }
+
+    private MixinClassLoader transform(int value) {
+        MixinClassLoader classLoader = new MixinClassLoader(value);
+        TransformCache.finish(classLoader);
+        assertTrue(classLoader.exported.containsKey(TARGET));
+        return classLoader;
+    }
+
+    private void writeMixins(String config) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(CONFIG, config.getBytes(StandardCharsets.UTF_8));
+        entries.put("test/mixin/CounterMixin.class", Fixtures.createMixinClass("test/mixin/CounterMixin", TARGET));
+        Fixtures.writeJar(mixins, entries);
+    }
+
+    private static byte[] readAll(URL url) throws IOException {
+        try (InputStream inputStream = url.openStream()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return outputStream.toByteArray();
+        }
+    }
+
+    // Stands in for modlauncher running mixin: targets are transformed and exported where mixin puts them
+    private class MixinClassLoader extends ClassLoader {
+
+        private final int value;
+        private final Map<String, byte[]> exported = new HashMap<>();
+
+        private MixinClassLoader(int value) {
+            super(null);
+            this.value = value;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String path = name.replace('.', '/');
+            try (JarFile jarFile = new JarFile(server)) {
+                ZipEntry entry = jarFile.getEntry(path + ".class");
+                if (entry == null) throw new ClassNotFoundException(name);
+                byte[] bytes = new byte[(int) entry.getSize()];
+                try (InputStream inputStream = jarFile.getInputStream(entry)) {
+                    new DataInputStream(inputStream).readFully(bytes);
+                }
+                if (path.equals(TARGET)) {
+                    bytes = apply(bytes);
+                    Path file = export.resolve(path + ".class");
+                    Files.createDirectories(file.getParent());
+                    Files.write(file, bytes);
+                    exported.put(path, bytes);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+
+        private byte[] apply(byte[] bytes) {
+            ClassWriter writer = new ClassWriter(0);
+            new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM7, writer) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                    return new MethodVisitor(Opcodes.ASM7, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                        @Override
+                        public void visitIntInsn(int opcode, int operand) {
+                            super.visitIntInsn(opcode, opcode == Opcodes.SIPUSH ? value : operand);
+                        }
+                    };
+                }
+            }, 0);
+            return writer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package systems.conduit.launcher.fixtures;
+
+import org.objectweb.asm.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+// Everything the benchmarks and tests read is generated here, so they run the same way offline on every machine
+public class Fixtures {
+
+    public static final String OBFUSCATED_PREFIX = "c";
+    public static final String NAMED_PREFIX = "net/minecraft/Named";
+    private static final Handle LAMBDA_METAFACTORY = new Handle(Opcodes.H_INVOKESTATIC, "java/lang/invoke/LambdaMetafactory", "metafactory",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;", false);
+
+    public static Path createDirectory(String name) throws IOException {
+        return Files.createTempDirectory("launcher-benchmark-" + name);
+    }
+
+    public static void delete(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) return;
+        try (Stream<Path> stream = Files.walk(path)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    public static String readResource(String name) throws IOException {
+        try (InputStream inputStream = Fixtures.class.getResourceAsStream(name)) {
+            if (inputStream == null) throw new FileNotFoundException(name);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static void writeJar(File file, Map<String, byte[]> entries) throws IOException {
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                jarOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+                jarOutputStream.write(entry.getValue());
+                jarOutputStream.closeEntry();
+            }
+        }
+    }
+
+    public static byte[] createObfuscatedClass(int index, int classes, int fields, int methods) {
+        // Shaped like the server jar: short names, a shallow hierarchy and calls into other classes
+        String name = OBFUSCATED_PREFIX + index;
+        String superName = index % 4 == 0 || index == 0 ? "java/lang/Object" : OBFUSCATED_PREFIX + (index - 1);
+        String other = OBFUSCATED_PREFIX + ((index * 7 + 3) % classes);
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, superName, null);
+        for (int i = 0; i < fields; i++) {
+            writer.visitField(Opcodes.ACC_PUBLIC, "f" + i, i % 2 == 0 ? "I" : "L" + other + ";", null, null).visitEnd();
+        }
+        writeConstructor(writer, superName);
+        for (int i = 0; i < methods; i++) {
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + i, "(L" + other + ";)L" + other + ";", null, null);
+            method.visitCode();
+            method.visitVarInsn(Opcodes.ALOAD, 1);
+            method.visitFieldInsn(Opcodes.GETFIELD, other, "f0", "I");
+            method.visitInsn(Opcodes.POP);
+            method.visitVarInsn(Opcodes.ALOAD, 1);
+            method.visitInsn(Opcodes.ARETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    public static void writeMappings(File file, int classes, int fields, int methods) throws IOException {
+        // ProGuard format, the same the server mappings are published in
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (int index = 0; index < classes; index++) {
+                String other = (NAMED_PREFIX + ((index * 7 + 3) % classes)).replace('/', '.');
+                writer.write(NAMED_PREFIX.replace('/', '.') + index + " -> " + OBFUSCATED_PREFIX + index + ":\n");
+                for (int i = 0; i < fields; i++) {
+                    writer.write("    " + (i % 2 == 0 ? "int" : other) + " field" + i + " -> f" + i + "\n");
+                }
+                for (int i = 0; i < methods; i++) {
+                    writer.write("    " + (10 + i) + ":" + (12 + i) + ":" + other + " method" + i + "(" + other + ") -> m" + i + "\n");
+                }
+            }
+        }
+    }
+
+    public static Map<String, byte[]> createRemapClasses() {
+        // Every shape the remapper has to get right, in the same order as writeRemapMappings:
+        // a is an interface, b an entity with an inner class b$a, c extends b and implements a,
+        // d creates lambdas for a and Runnable, e is not in the mappings at all
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT, "a", null, "java/lang/Object", null);
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "a", "(Lb;)V", null, null).visitEnd();
+        writer.visitEnd();
+        classes.put("a.class", writer.toByteArray());
+
+        writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "b", null, "java/lang/Object", null);
+        writer.visitInnerClass("b$a", "b", "a", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+        writer.visitField(Opcodes.ACC_PUBLIC, "a", "I", null, null).visitEnd();
+        writer.visitField(Opcodes.ACC_PUBLIC, "b", "Lb;", null, null).visitEnd();
+        writeConstructor(writer, "java/lang/Object");
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "a", "()Lb;", null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitFieldInsn(Opcodes.GETFIELD, "b", "b", "Lb;");
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        classes.put("b.class", writer.toByteArray());
+
+        writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "b$a", null, "java/lang/Object", null);
+        writer.visitInnerClass("b$a", "b", "a", Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC);
+        writer.visitField(Opcodes.ACC_PRIVATE, "a", "Lb;", null, null).visitEnd();
+        writeConstructor(writer, "java/lang/Object");
+        method = writer.visitMethod(Opcodes.ACC_PUBLIC, "a", "()Lb;", null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitFieldInsn(Opcodes.GETFIELD, "b$a", "a", "Lb;");
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        classes.put("b$a.class", writer.toByteArray());
+
+        writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "c", null, "b", new String[] {"a"});
+        writeConstructor(writer, "b");
+        // Only mapped on the interface, and reaches the field and method of b through c
+        method = writer.visitMethod(Opcodes.ACC_PUBLIC, "a", "(Lb;)V", null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "c", "a", "()Lb;", false);
+        method.visitInsn(Opcodes.POP);
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitFieldInsn(Opcodes.GETFIELD, "c", "a", "I");
+        method.visitInsn(Opcodes.POP);
+        method.visitInsn(Opcodes.RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        classes.put("c.class", writer.toByteArray());
+
+        writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "d", null, "java/lang/Object", null);
+        writeConstructor(writer, "java/lang/Object");
+        method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "a", "()La;", null, null);
+        method.visitCode();
+        method.visitInvokeDynamicInsn("a", "()La;", LAMBDA_METAFACTORY, Type.getType("(Lb;)V"),
+                new Handle(Opcodes.H_INVOKESTATIC, "d", "lambda$a$0", "(Lb;)V", false), Type.getType("(Lb;)V"));
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "b", "(Lb;)Ljava/lang/Runnable;", null, null);
+        method.visitCode();
+        method.visitVarInsn(Opcodes.ALOAD, 0);
+        method.visitInvokeDynamicInsn("run", "(Lb;)Ljava/lang/Runnable;", LAMBDA_METAFACTORY, Type.getType("()V"),
+                new Handle(Opcodes.H_INVOKESTATIC, "d", "lambda$b$1", "(Lb;)V", false), Type.getType("()V"));
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        for (String lambda : new String[] {"lambda$a$0", "lambda$b$1"}) {
+            method = writer.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, lambda, "(Lb;)V", null, null);
+            method.visitCode();
+            method.visitVarInsn(Opcodes.ALOAD, 0);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "b", "a", "()Lb;", false);
+            method.visitInsn(Opcodes.POP);
+            method.visitInsn(Opcodes.RETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        classes.put("d.class", writer.toByteArray());
+
+        writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "e", null, "java/lang/Object", null);
+        writer.visitField(Opcodes.ACC_PUBLIC, "a", "Lb;", null, null).visitEnd();
+        writeConstructor(writer, "java/lang/Object");
+        writer.visitEnd();
+        classes.put("e.class", writer.toByteArray());
+        return classes;
+    }
+
+    public static void writeRemapMappings(File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("net.minecraft.Handler -> a:\n");
+            writer.write("    void handle(net.minecraft.Entity) -> a\n");
+            writer.write("net.minecraft.Entity -> b:\n");
+            writer.write("    int id -> a\n");
+            writer.write("    net.minecraft.Entity parent -> b\n");
+            writer.write("    1:1:net.minecraft.Entity getParent() -> a\n");
+            writer.write("net.minecraft.Entity$Builder -> b$a:\n");
+            writer.write("    net.minecraft.Entity entity -> a\n");
+            writer.write("    2:2:net.minecraft.Entity build() -> a\n");
+            writer.write("net.minecraft.Zombie -> c:\n");
+            writer.write("net.minecraft.Handlers -> d:\n");
+            writer.write("    3:3:net.minecraft.Handler create() -> a\n");
+            writer.write("    4:4:java.lang.Runnable runnable(net.minecraft.Entity) -> b\n");
+        }
+    }
+
+    public static byte[] createCounterClass(String name, int value) {
+        // One constant for a mixin to change, so a transformed class is easy to tell apart
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        writeConstructor(writer, "java/lang/Object");
+        MethodVisitor get = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "get", "()I", null, null);
+        get.visitCode();
+        get.visitIntInsn(Opcodes.SIPUSH, value);
+        get.visitInsn(Opcodes.IRETURN);
+        get.visitMaxs(0, 0);
+        get.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    public static byte[] createMixinClass(String name, String target) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        AnnotationVisitor mixin = writer.visitAnnotation("Lorg/spongepowered/asm/mixin/Mixin;", false);
+        AnnotationVisitor value = mixin.visitArray("value");
+        value.visit(null, Type.getObjectType(target));
+        value.visitEnd();
+        mixin.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void writeConstructor(ClassWriter writer, String superName) {
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+    }
+}